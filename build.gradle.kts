@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.zergatul.scripting.monaco"
@@ -15,8 +16,33 @@ dependencies {
     implementation(files("..\\java-scripting-language\\build\\libs\\java-scripting-language.jar"))
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
 tasks.test {
     useJUnitPlatform()
+}
+
+// load generator, sources are in src/loadtest/java, see LoadTest for options
+val loadtest: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+    runtimeClasspath += sourceSets.main.get().output
+}
+
+configurations[loadtest.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+configurations[loadtest.runtimeOnlyConfigurationName].extendsFrom(configurations.runtimeOnly.get())
+
+// ./gradlew loadTest --args="--sessions 32 --duration 60"
+tasks.register<JavaExec>("loadTest") {
+    description = "Replays synthesized editor sessions against Server and reports latency per endpoint."
+    group = "verification"
+    classpath = loadtest.runtimeClasspath
+    mainClass = "com.zergatul.scripting.monaco.loadtest.LoadTest"
+    systemProperties(System.getProperties().filterKeys { (it as String).startsWith("jsl.") }.mapKeys { it.key as String })
+}
+
+// ./gradlew jmh, benchmarks are in src/jmh/java
+jmh {
+    jmhVersion = "1.37"
+    profilers = listOf("gc")
 }
\ No newline at end of file
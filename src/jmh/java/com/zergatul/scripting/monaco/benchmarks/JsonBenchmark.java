@@ -0,0 +1,99 @@
+package com.zergatul.scripting.monaco.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.zergatul.scripting.lexer.TokenType;
+import com.zergatul.scripting.monaco.*;
+import com.zergatul.scripting.monaco.adapters.ClassTypeAdapterFactory;
+import com.zergatul.scripting.monaco.adapters.NodeTypeAdapter;
+import com.zergatul.scripting.monaco.adapters.TextRangeTypeAdapterFactory;
+import com.zergatul.scripting.monaco.adapters.TokenTypeAdapter;
+import com.zergatul.scripting.parser.NodeType;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Compares hand-written adapters registered in Json with Gson reflective adapters.
+    "reflective" Gson only has adapters which existed before hot response types got their own.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({ "100", "10000" })
+    public int size;
+
+    private Gson reflective;
+    private List<Suggestion> suggestions;
+    private SemanticTokensStore.Result tokens;
+    private List<Server.DiagnosticsResponseItem> diagnostics;
+
+    @Setup
+    public void setup() {
+        reflective = new GsonBuilder()
+                .registerTypeAdapterFactory(new TextRangeTypeAdapterFactory())
+                .registerTypeAdapterFactory(new ClassTypeAdapterFactory())
+                .registerTypeAdapter(TokenType.class, new TokenTypeAdapter())
+                .registerTypeAdapter(NodeType.class, new NodeTypeAdapter())
+                .create();
+
+        suggestions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            suggestions.add(new Suggestion("member" + i, "java.lang.String", null, "member" + i, CompletionItemKind.PROPERTY));
+        }
+
+        int[] data = new int[size * 5];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i % 37;
+        }
+        tokens = new SemanticTokensStore.Result("document/1", data, null);
+
+        // every line references unknown name, so binder reports one diagnostic per line
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            code.append("int x").append(i).append(" = unknown").append(i).append(";\n");
+        }
+        AnalysisCache cache = new AnalysisCache(type -> new com.zergatul.scripting.compiler.CompilationParameters(Server.Root.class), 1, 1);
+        diagnostics = cache.get(code.toString(), "").binderOutput().diagnostics().stream()
+                .map(d -> new Server.DiagnosticsResponseItem(d.range, d.message))
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] suggestionsReflective() {
+        return reflective.toJson(suggestions).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] suggestionsAdapter() {
+        return Json.toJson(suggestions);
+    }
+
+    @Benchmark
+    public byte[] semanticTokensReflective() {
+        return reflective.toJson(tokens).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] semanticTokensAdapter() {
+        return Json.toJson(tokens);
+    }
+
+    @Benchmark
+    public byte[] diagnosticsReflective() {
+        return reflective.toJson(diagnostics).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] diagnosticsAdapter() {
+        return Json.toJson(diagnostics);
+    }
+}
\ No newline at end of file
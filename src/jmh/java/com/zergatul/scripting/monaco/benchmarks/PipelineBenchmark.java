@@ -0,0 +1,58 @@
+package com.zergatul.scripting.monaco.benchmarks;
+
+import com.zergatul.scripting.binding.Binder;
+import com.zergatul.scripting.binding.BinderOutput;
+import com.zergatul.scripting.compiler.CompilationParameters;
+import com.zergatul.scripting.lexer.Lexer;
+import com.zergatul.scripting.lexer.LexerInput;
+import com.zergatul.scripting.lexer.LexerOutput;
+import com.zergatul.scripting.monaco.Server;
+import com.zergatul.scripting.parser.Parser;
+import com.zergatul.scripting.parser.ParserOutput;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    Each analysis stage separately, input for stage is computed once in setup.
+    Binder gets new CompilerContext on every call, same as AnalysisCache.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({ "10", "100", "1000", "10000", "50000" })
+    public int lines;
+
+    private String code;
+    private CompilationParameters parameters;
+    private LexerOutput lexerOutput;
+    private ParserOutput parserOutput;
+
+    @Setup
+    public void setup() {
+        code = ScriptGenerator.generate(lines).code();
+        parameters = new CompilationParameters(Server.Root.class);
+        lexerOutput = new Lexer(new LexerInput(code)).lex();
+        parserOutput = new Parser(lexerOutput).parse();
+    }
+
+    @Benchmark
+    public LexerOutput lex() {
+        return new Lexer(new LexerInput(code)).lex();
+    }
+
+    @Benchmark
+    public ParserOutput parse() {
+        return new Parser(lexerOutput).parse();
+    }
+
+    @Benchmark
+    public BinderOutput bind() {
+        return new Binder(parserOutput, parameters.getContext()).bind();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.zergatul.scripting.monaco.benchmarks;
+
+import com.zergatul.scripting.TextRange;
+import com.zergatul.scripting.binding.nodes.BoundNode;
+import com.zergatul.scripting.compiler.CompilationParameters;
+import com.zergatul.scripting.monaco.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Requests against already analyzed script, as it happens when analysis is served from AnalysisCache.
+    Hover results for API methods are cached inside HoverProvider, so hover measures steady state.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProviderBenchmark {
+
+    @Param({ "10", "100", "1000", "10000", "50000" })
+    public int lines;
+
+    private ScriptGenerator.Script script;
+    private Analysis analysis;
+    private StaticSymbolIndex staticSymbols;
+    private HoverProvider hoverProvider;
+    private DefinitionProvider definitionProvider;
+    private CompletionProvider completionProvider;
+    private CompletionList completionList;
+    private List<Server.DiagnosticsResponseItem> diagnostics;
+
+    @Setup
+    public void setup() {
+        script = ScriptGenerator.generate(lines);
+
+        ScriptTypeRegistry scriptTypes = new ScriptTypeRegistry(Map.of(
+                ScriptTypeRegistry.DEFAULT_TYPE, () -> new CompilationParameters(Server.Root.class)));
+        staticSymbols = scriptTypes.get(ScriptTypeRegistry.DEFAULT_TYPE).staticSymbols();
+        analysis = new AnalysisCache(scriptTypes, 1, 1).get(script.code(), ScriptTypeRegistry.DEFAULT_TYPE);
+        analysis.positionIndex();
+
+        DocumentationProvider documentationProvider = new DocumentationProvider();
+        hoverProvider = new HoverProvider(new DarkTheme(), documentationProvider);
+        definitionProvider = new DefinitionProvider();
+        completionProvider = new CompletionProvider(documentationProvider);
+        completionProvider.warmUp(staticSymbols);
+
+        completionList = statementCompletion();
+        diagnostics = analysis.binderOutput().diagnostics().stream()
+                .map(d -> new Server.DiagnosticsResponseItem(d.range, d.message))
+                .toList();
+    }
+
+    @Benchmark
+    public PositionIndex positionIndexBuild() {
+        return new PositionIndex(analysis.binderOutput().unit());
+    }
+
+    @Benchmark
+    public BoundNode positionIndexFind() {
+        return analysis.positionIndex().find(script.memberLine(), 14);
+    }
+
+    @Benchmark
+    public CompletionList memberCompletion() {
+        return completionProvider.get(analysis.binderOutput(), staticSymbols, analysis.positionIndex(), script.memberLine(), 13, "", CompletionProvider.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public CompletionList statementCompletion() {
+        return completionProvider.get(analysis.binderOutput(), staticSymbols, analysis.positionIndex(), script.statementLine(), 1, "", CompletionProvider.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public CompletionList prefixCompletion() {
+        return completionProvider.get(analysis.binderOutput(), staticSymbols, analysis.positionIndex(), script.statementLine(), 1, "fc", CompletionProvider.DEFAULT_LIMIT);
+    }
+
+    @Benchmark
+    public HoverProvider.HoverResponse hover() {
+        BoundNode node = analysis.positionIndex().find(script.memberLine(), 14);
+        return hoverProvider.get(node, staticSymbols);
+    }
+
+    @Benchmark
+    public TextRange definition() {
+        BoundNode node = analysis.positionIndex().find(script.ifLine(), 5);
+        return definitionProvider.get(node);
+    }
+
+    @Benchmark
+    public byte[] completionJson() {
+        return Json.toJson(completionList);
+    }
+
+    @Benchmark
+    public byte[] diagnosticsJson() {
+        return Json.toJson(diagnostics);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.zergatul.scripting.monaco.benchmarks;
+
+/*
+    Generates script of given line count in the shape of editor sample: static variable, functions,
+    then statements calling API from Server.Root. Positions point into the middle of the script.
+*/
+public class ScriptGenerator {
+
+    private static final int LINES_PER_FUNCTION = 50;
+
+    public static Script generate(int lines) {
+        StringBuilder code = new StringBuilder();
+        int line = 0;
+
+        code.append("static int ww = 900;\n");
+        line++;
+
+        int functions = Math.max(1, lines / LINES_PER_FUNCTION);
+        for (int i = 0; i < functions; i++) {
+            code.append("int func").append(i).append("(int x) {\n");
+            code.append("    return x + ww + ").append(i).append(";\n");
+            code.append("}\n");
+            line += 3;
+        }
+
+        // 6 lines per chunk
+        int chunks = Math.max(1, (lines - line) / 6);
+        int target = chunks / 2;
+        int statementLine = 0;
+        int ifLine = 0;
+        int memberLine = 0;
+        for (int i = 0; i < chunks; i++) {
+            if (i == target) {
+                statementLine = line + 1;
+                ifLine = line + 2;
+                memberLine = line + 4;
+            }
+            code.append("int x").append(i).append(" = func").append(i % functions).append("(").append(i).append(");\n");
+            code.append("if (x").append(i).append(" > ww) {\n");
+            code.append("    main.chat(\"abc\");\n");
+            code.append("    freeCam.toggle();\n");
+            code.append("}\n");
+            code.append("boolean b").append(i).append(" = freeCam.isActive();\n");
+            line += 6;
+        }
+
+        return new Script(code.toString(), line, statementLine, ifLine, memberLine);
+    }
+
+    /*
+        statementLine: "int xN = ..." line, column 1 is statement position
+        ifLine: "if (xN > ww) {" line, column 5 is reference to local variable
+        memberLine: "    freeCam.toggle();" line, column 13 is right after ".", column 14 is inside method name
+    */
+    public record Script(String code, int lines, int statementLine, int ifLine, int memberLine) {}
+}
\ No newline at end of file
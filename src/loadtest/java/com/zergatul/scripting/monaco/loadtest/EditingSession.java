@@ -0,0 +1,260 @@
+package com.zergatul.scripting.monaco.loadtest;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/*
+    Synthesized editor session, follows requests index.js makes while user types:
+    document is opened once, every keystroke sends /code/document/change and /code/analyze
+    (semantic tokens + diagnostics, previous tokens result is released), completion is requested
+    on "." and at word start, hover and definition are requested from time to time.
+    Document is reopened when it grows over the limit.
+*/
+public class EditingSession implements Runnable {
+
+    private static final String BASE_CODE =
+            "static int ww = 900;\n\n" +
+            "int func1(int x) {\n    return x + ww + 1;\n}\n\n" +
+            "freeCam.toggle();\nint x = func1(12345);\nint y = x + 333;\nchar ch = '!';\nfloat a = 1.43;\nfloat b = 100;\nstring s = \"text\";\nboolean bb = false;\nif (x > y) {\n    main.chat(\"abc\");\n}\n" +
+            "boolean bbb = s.contains(\"ex\");";
+
+    private static final String[] SNIPPETS = {
+            "\nint counter = x + 1;",
+            "\nfreeCam.toggle();",
+            "\nif (freeCam.isActive()) {\n    main.chat(\"active\");\n}",
+            "\nboolean active = freeCam.isActive();",
+            "\nmain.chat(s);",
+            "\nfreeCam.toggleControls();"
+    };
+
+    // recorded as status when there is no HTTP response
+    private static final int TRANSPORT_ERROR = -1;
+
+    private final HttpClient client;
+    private final String url;
+    private final int maxLength;
+    private final long thinkMillis;
+    private final long deadline;
+    private final Random random;
+    private final LatencyStats stats = new LatencyStats();
+
+    private String document;
+    private StringBuilder code;
+    private int version;
+    private int line;
+    private int column;
+    private String resultId;
+
+    public EditingSession(HttpClient client, String url, int maxLength, long thinkMillis, long deadline, long seed) {
+        this.client = client;
+        this.url = url;
+        this.maxLength = maxLength;
+        this.thinkMillis = thinkMillis;
+        this.deadline = deadline;
+        this.random = new Random(seed);
+    }
+
+    public LatencyStats getStats() {
+        return stats;
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                if (!open()) {
+                    // failure is already counted, do not spin against a failing server
+                    Thread.sleep(Math.max(thinkMillis, 100));
+                    continue;
+                }
+                while (code.length() < maxLength && System.currentTimeMillis() < deadline) {
+                    String snippet = SNIPPETS[random.nextInt(SNIPPETS.length)];
+                    for (int i = 0; i < snippet.length() && System.currentTimeMillis() < deadline; i++) {
+                        type(snippet.charAt(i));
+                    }
+                }
+                close();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // false when server did not open the document
+    private boolean open() throws InterruptedException {
+        code = new StringBuilder(BASE_CODE);
+        version = 1;
+        resultId = null;
+        line = 1;
+        column = 1;
+        for (int i = 0; i < code.length(); i++) {
+            advance(code.charAt(i));
+        }
+
+        JsonObject request = new JsonObject();
+        request.addProperty("code", code.toString());
+        request.addProperty("type", "");
+        request.addProperty("version", version);
+        JsonElement response = post("/code/document/open", request);
+        if (response == null || !response.isJsonObject() || !response.getAsJsonObject().has("document")) {
+            return false;
+        }
+        document = response.getAsJsonObject().get("document").getAsString();
+
+        analyze();
+        return true;
+    }
+
+    private void close() throws InterruptedException {
+        JsonObject request = new JsonObject();
+        request.addProperty("document", document);
+        post("/code/document/close", request);
+    }
+
+    private void type(char ch) throws InterruptedException {
+        char prev = code.isEmpty() ? '\n' : code.charAt(code.length() - 1);
+        int offset = code.length();
+        code.append(ch);
+        advance(ch);
+        version++;
+
+        JsonObject change = new JsonObject();
+        change.addProperty("rangeOffset", offset);
+        change.addProperty("rangeLength", 0);
+        change.addProperty("text", String.valueOf(ch));
+        JsonArray changes = new JsonArray();
+        changes.add(change);
+        JsonObject request = new JsonObject();
+        request.addProperty("document", document);
+        request.addProperty("version", version);
+        request.add("changes", changes);
+        post("/code/document/change", request);
+
+        if (ch == '.' || Character.isJavaIdentifierStart(ch) && !Character.isJavaIdentifierPart(prev)) {
+            completion();
+        }
+        analyze();
+        if (random.nextInt(20) == 0) {
+            positionRequest("/code/hover");
+        }
+        if (random.nextInt(50) == 0) {
+            positionRequest("/code/definition");
+        }
+
+        if (thinkMillis > 0) {
+            Thread.sleep(thinkMillis);
+        }
+    }
+
+    private void analyze() throws InterruptedException {
+        JsonObject request = documentRequest();
+        request.addProperty("tokens", true);
+        request.addProperty("diagnostics", true);
+        request.addProperty("previousResultId", resultId);
+        JsonElement response = post("/code/analyze", request);
+        if (response != null && response.isJsonObject()) {
+            String previous = resultId;
+            resultId = response.getAsJsonObject().getAsJsonObject("tokens").get("resultId").getAsString();
+            if (previous != null) {
+                JsonObject release = new JsonObject();
+                release.addProperty("resultId", previous);
+                post("/code/semantic-tokens/release", release);
+            }
+        }
+    }
+
+    private void completion() throws InterruptedException {
+        int start = code.length();
+        while (start > 0 && Character.isJavaIdentifierPart(code.charAt(start - 1))) {
+            start--;
+        }
+        JsonObject request = documentRequest();
+        request.addProperty("line", line);
+        request.addProperty("column", column);
+        request.addProperty("prefix", code.substring(start));
+        request.addProperty("limit", 100);
+        post("/code/completion", request);
+    }
+
+    // random position in base part of the code, as mouse hover would be
+    private void positionRequest(String path) throws InterruptedException {
+        JsonObject request = documentRequest();
+        request.addProperty("line", 1 + random.nextInt(17));
+        request.addProperty("column", 1 + random.nextInt(20));
+        post(path, request);
+    }
+
+    private JsonObject documentRequest() {
+        JsonObject request = new JsonObject();
+        request.addProperty("document", document);
+        request.addProperty("version", version);
+        return request;
+    }
+
+    private void advance(char ch) {
+        if (ch == '\n') {
+            line++;
+            column = 1;
+        } else {
+            column++;
+        }
+    }
+
+    private JsonElement post(String path, JsonObject body) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + path))
+                .header("Accept-Encoding", "gzip, deflate")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
+                .build();
+
+        // non-200 statuses, transport and decoding failures are counted as errors, session goes on
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            stats.record(path, System.nanoTime() - start, TRANSPORT_ERROR);
+            return null;
+        }
+        long nanos = System.nanoTime() - start;
+
+        int status = response.statusCode();
+        JsonElement result = null;
+        if (status == 200 && response.body().length > 0) {
+            try {
+                result = JsonParser.parseString(decode(response));
+            } catch (IOException | JsonParseException e) {
+                status = TRANSPORT_ERROR;
+            }
+        }
+        stats.record(path, nanos, status);
+        return result;
+    }
+
+    private static String decode(HttpResponse<byte[]> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("");
+        InputStream stream = new ByteArrayInputStream(response.body());
+        if (encoding.equals("gzip")) {
+            stream = new GZIPInputStream(stream);
+        } else if (encoding.equals("deflate")) {
+            stream = new InflaterInputStream(stream);
+        }
+        try (InputStream input = stream) {
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
\ No newline at end of file
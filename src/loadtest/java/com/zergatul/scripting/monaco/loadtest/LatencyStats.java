@@ -0,0 +1,79 @@
+package com.zergatul.scripting.monaco.loadtest;
+
+import java.util.*;
+
+// per endpoint latency samples of one session, merged after run
+public class LatencyStats {
+
+    private final Map<String, Samples> endpoints = new TreeMap<>();
+
+    public void record(String endpoint, long nanos, int status) {
+        Samples samples = endpoints.computeIfAbsent(endpoint, e -> new Samples());
+        if (status == 200) {
+            samples.add(nanos);
+        } else if (status == 410) {
+            samples.stale++;
+        } else {
+            samples.errors++;
+        }
+    }
+
+    public void merge(LatencyStats other) {
+        for (Map.Entry<String, Samples> entry : other.endpoints.entrySet()) {
+            endpoints.computeIfAbsent(entry.getKey(), e -> new Samples()).merge(entry.getValue());
+        }
+    }
+
+    public void print(double seconds) {
+        System.out.printf("%-34s %10s %10s %8s %8s %10s %10s %10s %10s%n", "endpoint", "count", "req/s", "stale", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<String, Samples> entry : endpoints.entrySet()) {
+            Samples samples = entry.getValue();
+            long[] sorted = Arrays.copyOf(samples.values, samples.count);
+            Arrays.sort(sorted);
+            total += samples.count;
+            System.out.printf("%-34s %10d %10.1f %8d %8d %10.3f %10.3f %10.3f %10.3f%n",
+                    entry.getKey(),
+                    samples.count,
+                    samples.count / seconds,
+                    samples.stale,
+                    samples.errors,
+                    percentile(sorted, 0.5),
+                    percentile(sorted, 0.99),
+                    percentile(sorted, 0.999),
+                    sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0);
+        }
+        System.out.printf("total %d requests, %.1f req/s%n", total, total / seconds);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static class Samples {
+
+        private long[] values = new long[1024];
+        private int count;
+        private int stale;
+        private int errors;
+
+        public void add(long value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[count++] = value;
+        }
+
+        public void merge(Samples other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.values[i]);
+            }
+            stale += other.stale;
+            errors += other.errors;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,141 @@
+package com.zergatul.scripting.monaco.loadtest;
+
+import com.zergatul.scripting.monaco.Server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    ./gradlew loadTest --args="--sessions 32 --duration 60"
+
+    Options:
+        --url <url>          server to test, by default Server is started in child JVM on port 5505,
+                             its output goes to build/loadtest-server.log
+        --sessions <n>       concurrent editing sessions (16)
+        --duration <s>       test duration in seconds (30)
+        --think <ms>         pause between keystrokes (50), 0 gives max load
+        --max-length <n>     document is reopened after it grows to this many characters (4000)
+    jsl.* system properties of this JVM are passed to started server.
+*/
+public class LoadTest {
+
+    private static final String DEFAULT_URL = "http://localhost:5505";
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int sessions = 16;
+        int duration = 30;
+        long think = 50;
+        int maxLength = 4000;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--url" -> url = value;
+                case "--sessions" -> sessions = Integer.parseInt(value);
+                case "--duration" -> duration = Integer.parseInt(value);
+                case "--think" -> think = Long.parseLong(value);
+                case "--max-length" -> maxLength = Integer.parseInt(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            i++;
+        }
+
+        Process server = null;
+        if (url == null) {
+            url = DEFAULT_URL;
+            server = startServer();
+        }
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        try {
+            waitForServer(client, url);
+            System.out.printf("Running %d sessions for %d s against %s%n", sessions, duration, url);
+
+            long start = System.currentTimeMillis();
+            long deadline = start + duration * 1000L;
+            List<EditingSession> list = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < sessions; i++) {
+                EditingSession session = new EditingSession(client, url, maxLength, think, deadline, i);
+                Thread thread = new Thread(session, "session-" + i);
+                list.add(session);
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            double seconds = (System.currentTimeMillis() - start) / 1000.0;
+
+            LatencyStats stats = new LatencyStats();
+            for (EditingSession session : list) {
+                stats.merge(session.getStats());
+            }
+            stats.print(seconds);
+        } finally {
+            if (server != null) {
+                stopServer(server);
+            }
+        }
+    }
+
+    // separate JVM, so client threads and allocations do not affect server measurements
+    private static Process startServer() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("jsl.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Server.class.getName());
+
+        // relative to project directory when started by gradle
+        File log = new File("build", "loadtest-server.log");
+        log.getParentFile().mkdirs();
+        return new ProcessBuilder(command)
+                .redirectOutput(log)
+                .redirectErrorStream(true)
+                .start();
+    }
+
+    private static void stopServer(Process server) throws IOException, InterruptedException {
+        // Server stops on any input
+        try (OutputStream stdin = server.getOutputStream()) {
+            stdin.write('\n');
+        }
+        if (!server.waitFor(10, TimeUnit.SECONDS)) {
+            server.destroyForcibly();
+        }
+    }
+
+    private static void waitForServer(HttpClient client, String url) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/code/tokens")).GET().build();
+        for (int i = 0; i < 100; i++) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not started yet
+            }
+            Thread.sleep(100);
+        }
+        throw new IllegalStateException("Server at " + url + " is not available.");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.binding.BinderOutput;
+import com.zergatul.scripting.lexer.LexerOutput;
+import com.zergatul.scripting.parser.ParserOutput;
+
+public class Analysis {
+
+    private final LexerOutput lexerOutput;
+    private final ParserOutput parserOutput;
+    private final BinderOutput binderOutput;
+    private volatile PositionIndex positionIndex;
+
+    public Analysis(LexerOutput lexerOutput, ParserOutput parserOutput, BinderOutput binderOutput) {
+        this.lexerOutput = lexerOutput;
+        this.parserOutput = parserOutput;
+        this.binderOutput = binderOutput;
+    }
+
+    public LexerOutput lexerOutput() {
+        return lexerOutput;
+    }
+
+    public ParserOutput parserOutput() {
+        return parserOutput;
+    }
+
+    public BinderOutput binderOutput() {
+        return binderOutput;
+    }
+
+    // built on first position lookup, diagnostics-only requests never need it
+    public PositionIndex positionIndex() {
+        PositionIndex index = positionIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = positionIndex;
+                if (index == null) {
+                    positionIndex = index = new PositionIndex(binderOutput.unit());
+                }
+            }
+        }
+        return index;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.binding.Binder;
+import com.zergatul.scripting.binding.BinderOutput;
+import com.zergatul.scripting.lexer.Lexer;
+import com.zergatul.scripting.lexer.LexerInput;
+import com.zergatul.scripting.lexer.LexerOutput;
+import com.zergatul.scripting.monaco.events.BindEvent;
+import com.zergatul.scripting.monaco.events.LexEvent;
+import com.zergatul.scripting.monaco.events.ParseEvent;
+import com.zergatul.scripting.monaco.metrics.Metrics;
+import com.zergatul.scripting.monaco.metrics.Phase;
+import com.zergatul.scripting.parser.Parser;
+import com.zergatul.scripting.parser.ParserOutput;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.BooleanSupplier;
+
+public class AnalysisCache {
+
+    private final CompilationParametersResolver resolver;
+    private final LruCache<Key, Analysis> cache;
+    private final Semaphore semaphore;
+
+    public AnalysisCache(CompilationParametersResolver resolver, int capacity, int maxConcurrency) {
+        this.resolver = resolver;
+        this.cache = new LruCache<>(capacity);
+        this.semaphore = new Semaphore(maxConcurrency, true);
+    }
+
+    public Analysis get(SourceSnapshot snapshot) {
+        return get(snapshot, () -> false);
+    }
+
+    /*
+        "stale" is checked between pipeline stages. When it returns true, analysis is abandoned
+        with StaleRequestException, nothing is cached in this case.
+    */
+    public Analysis get(SourceSnapshot snapshot, BooleanSupplier stale) {
+        Key key = new Key(snapshot.code(), snapshot.type() == null ? "" : snapshot.type());
+        Analysis analysis = cache.get(key);
+        if (analysis != null) {
+            Metrics.cacheHit("analysis");
+            return analysis;
+        }
+        Metrics.cacheMiss("analysis");
+
+        // analysis is CPU bound, running more of them than there are cores only adds contention
+        semaphore.acquireUninterruptibly();
+        try {
+            // two threads can race on the same key, both results are equal so last one wins
+            analysis = analyze(snapshot, key.type, stale);
+        } finally {
+            semaphore.release();
+        }
+
+        cache.put(key, analysis);
+        return analysis;
+    }
+
+    public Analysis get(String code, String type) {
+        return get(new SourceSnapshot(null, 0, code, type));
+    }
+
+    private Analysis analyze(SourceSnapshot snapshot, String type, BooleanSupplier stale) {
+        checkStale(snapshot, stale);
+        LexEvent lexEvent = new LexEvent();
+        lexEvent.begin();
+        long start = System.nanoTime();
+        Lexer lexer = new Lexer(new LexerInput(snapshot.code()));
+        LexerOutput lexerOutput = lexer.lex();
+        long lexed = System.nanoTime();
+        Metrics.record(Phase.LEX, lexed - start);
+        lexEvent.finish(snapshot, lexerOutput);
+
+        checkStale(snapshot, stale);
+        ParseEvent parseEvent = new ParseEvent();
+        parseEvent.begin();
+        Parser parser = new Parser(lexerOutput);
+        ParserOutput parserOutput = parser.parse();
+        long parsed = System.nanoTime();
+        Metrics.record(Phase.PARSE, parsed - lexed);
+        parseEvent.finish(snapshot, parserOutput);
+
+        checkStale(snapshot, stale);
+        BindEvent bindEvent = new BindEvent();
+        bindEvent.begin();
+        Binder binder = new Binder(parserOutput, resolver.resolve(type).getContext());
+        BinderOutput binderOutput = binder.bind();
+        Metrics.record(Phase.BIND, System.nanoTime() - parsed);
+        bindEvent.finish(snapshot, binderOutput);
+
+        return new Analysis(lexerOutput, parserOutput, binderOutput);
+    }
+
+    private static void checkStale(SourceSnapshot snapshot, BooleanSupplier stale) {
+        if (stale.getAsBoolean()) {
+            throw new StaleRequestException(snapshot.document(), snapshot.version());
+        }
+    }
+
+    // String caches its hash, so repeated lookups only pay for equals() on a hash match
+    private record Key(String code, String type) {}
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.TextRange;
+import com.zergatul.scripting.binding.nodes.BoundNode;
+import com.zergatul.scripting.monaco.events.CompletionEvent;
+import com.zergatul.scripting.monaco.events.DefinitionEvent;
+import com.zergatul.scripting.monaco.events.HoverEvent;
+import com.zergatul.scripting.monaco.metrics.Metrics;
+import com.zergatul.scripting.monaco.metrics.Phase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+/*
+    Runs operations of /code/batch against one snapshot.
+    Snapshot is bound at most once before operations start, after that operations only read
+    shared Analysis, so they run in parallel: first one on request thread, others on executor.
+    Results keep order of operations, each one has the same shape as response of its own endpoint.
+*/
+public class BatchProcessor {
+
+    public static final String TOKENIZE = "tokenize";
+    public static final String DIAGNOSTICS = "diagnostics";
+    public static final String HOVER = "hover";
+    public static final String DEFINITION = "definition";
+    public static final String COMPLETION = "completion";
+
+    private final ScriptTypeRegistry scriptTypes;
+    private final AnalysisCache analysisCache;
+    private final IncrementalTokenizer tokenizer;
+    private final HoverProvider hoverProvider;
+    private final DefinitionProvider definitionProvider;
+    private final CompletionProvider completionProvider;
+    private final Executor executor;
+
+    // executor can be null, then operations run one by one on request thread
+    public BatchProcessor(
+            ScriptTypeRegistry scriptTypes,
+            AnalysisCache analysisCache,
+            IncrementalTokenizer tokenizer,
+            HoverProvider hoverProvider,
+            DefinitionProvider definitionProvider,
+            CompletionProvider completionProvider,
+            Executor executor
+    ) {
+        this.scriptTypes = scriptTypes;
+        this.analysisCache = analysisCache;
+        this.tokenizer = tokenizer;
+        this.hoverProvider = hoverProvider;
+        this.definitionProvider = definitionProvider;
+        this.completionProvider = completionProvider;
+        this.executor = executor;
+    }
+
+    public List<Object> process(SourceSnapshot snapshot, BooleanSupplier stale, List<Server.BatchOperation> operations) {
+        // reject whole batch before doing any work
+        boolean bind = false;
+        for (Server.BatchOperation operation : operations) {
+            validate(operation);
+            bind |= !operation.op().equals(TOKENIZE);
+        }
+        Analysis analysis = bind ? analysisCache.get(snapshot, stale) : null;
+
+        long start = System.nanoTime();
+        List<Object> results = new ArrayList<>(operations.size());
+        if (executor == null || operations.size() < 2) {
+            for (Server.BatchOperation operation : operations) {
+                results.add(run(snapshot, analysis, operation));
+            }
+        } else {
+            List<CompletableFuture<Object>> futures = new ArrayList<>(operations.size() - 1);
+            for (int i = 1; i < operations.size(); i++) {
+                Server.BatchOperation operation = operations.get(i);
+                futures.add(CompletableFuture.supplyAsync(() -> run(snapshot, analysis, operation), executor));
+            }
+            results.add(run(snapshot, analysis, operations.get(0)));
+            for (CompletableFuture<Object> future : futures) {
+                results.add(join(future));
+            }
+        }
+        // metrics are bound to request thread, provider phase is wall time of all operations
+        Metrics.record(Phase.PROVIDER, System.nanoTime() - start);
+        return results;
+    }
+
+    private Object run(SourceSnapshot snapshot, Analysis analysis, Server.BatchOperation operation) {
+        return switch (operation.op()) {
+            case TOKENIZE -> tokenizer.tokenize(snapshot, analysis != null ? analysis.lexerOutput() : null);
+            case DIAGNOSTICS -> Server.getDiagnostics(analysis.binderOutput());
+            case HOVER -> {
+                HoverEvent event = new HoverEvent();
+                event.begin();
+                BoundNode node = analysis.positionIndex().find(operation.line(), operation.column());
+                HoverProvider.HoverResponse result = hoverProvider.get(node, scriptTypes.get(snapshot.type()).staticSymbols());
+                event.finish(snapshot, result != null ? result.content().size() : 0);
+                yield result;
+            }
+            case DEFINITION -> {
+                DefinitionEvent event = new DefinitionEvent();
+                event.begin();
+                BoundNode node = analysis.positionIndex().find(operation.line(), operation.column());
+                TextRange result = definitionProvider.get(node);
+                event.finish(snapshot, result != null ? 1 : 0);
+                yield result;
+            }
+            case COMPLETION -> {
+                CompletionEvent event = new CompletionEvent();
+                event.begin();
+                CompletionList result = completionProvider.get(analysis.binderOutput(), scriptTypes.get(snapshot.type()).staticSymbols(), analysis.positionIndex(), operation.line(), operation.column(), operation.prefix(), getLimit(operation));
+                event.finish(snapshot, result.suggestions().size());
+                yield result;
+            }
+            default -> throw new IllegalStateException();
+        };
+    }
+
+    private static void validate(Server.BatchOperation operation) {
+        if (operation == null || operation.op() == null) {
+            throw new RequestException(400, "Batch operation is missing");
+        }
+        switch (operation.op()) {
+            case TOKENIZE, DIAGNOSTICS -> {}
+            case HOVER, DEFINITION -> validatePosition(operation);
+            case COMPLETION -> {
+                validatePosition(operation);
+                int limit = getLimit(operation);
+                if (limit <= 0) {
+                    throw new RequestException(400, "Invalid completion limit " + limit);
+                }
+            }
+            default -> throw new RequestException(400, "Unknown batch operation " + operation.op());
+        }
+    }
+
+    // missing position would silently become 0 and query a position which is not in the document
+    private static void validatePosition(Server.BatchOperation operation) {
+        if (operation.line() == null || operation.column() == null) {
+            throw new RequestException(400, "Batch operation " + operation.op() + " requires line and column");
+        }
+    }
+
+    private static int getLimit(Server.BatchOperation operation) {
+        return operation.limit() != null ? operation.limit() : CompletionProvider.DEFAULT_LIMIT;
+    }
+
+    private static Object join(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,5 @@
+package com.zergatul.scripting.monaco;
+
+import java.util.List;
+
+public record CompletionList(boolean isIncomplete, List<Suggestion> suggestions) {}
\ No newline at end of file
@@ -2,31 +2,49 @@ package com.zergatul.scripting.monaco;
 
 import com.zergatul.scripting.binding.BinderOutput;
 import com.zergatul.scripting.binding.nodes.*;
-import com.zergatul.scripting.compiler.CompilerContext;
 import com.zergatul.scripting.parser.NodeType;
 import com.zergatul.scripting.symbols.*;
 import com.zergatul.scripting.type.*;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CompletionProvider {
 
+    public static final int DEFAULT_LIMIT = 100;
+
     private final DocumentationProvider documentationProvider;
+    private final CompletionResolver resolver;
+    private final MemberCompletions memberCompletions;
+    // one entry per script type
+    private final ConcurrentHashMap<StaticSymbolIndex, SuggestionIndex> staticConstants = new ConcurrentHashMap<>();
 
     public CompletionProvider(DocumentationProvider documentationProvider) {
         this.documentationProvider = documentationProvider;
+        this.resolver = new CompletionResolver();
+        this.memberCompletions = new MemberCompletions(documentationProvider, resolver);
+    }
+
+    public void warmUp(StaticSymbolIndex staticSymbols) {
+        getStaticConstants(staticSymbols);
+        memberCompletions.warmUp(staticSymbols);
     }
 
-    public List<Suggestion> get(BinderOutput output, int line, int column) {
+    public CompletionList get(BinderOutput output, StaticSymbolIndex staticSymbols, PositionIndex index, int line, int column, String prefix, int limit) {
         BoundCompilationUnitNode unit = output.unit();
-        CompletionContext completionContext = getCompletionContext(unit, line, column);
-        return get(output, completionContext, line, column);
+        CompletionContext completionContext = getCompletionContext(unit, index, line, column);
+        SuggestionRanker ranker = new SuggestionRanker(prefix, limit);
+        collect(output, staticSymbols, completionContext, line, column, ranker);
+        return ranker.getResult();
     }
 
-    private List<Suggestion> get(BinderOutput output, CompletionContext completionContext, int line, int column) {
+    public Suggestion resolve(String id) {
+        return resolver.resolve(id);
+    }
+
+    private void collect(BinderOutput output, StaticSymbolIndex staticSymbols, CompletionContext completionContext, int line, int column, SuggestionRanker suggestions) {
         BoundCompilationUnitNode unit = output.unit();
-        List<Suggestion> suggestions = new ArrayList<>();
 
         boolean canStatic = false;
         boolean canVoid = false;
@@ -77,7 +95,7 @@ public class CompletionProvider {
                         BoundNode unfinished = getUnfinished(completionContext.prev, line, column);
                         if (unfinished != null) {
                             CompletionContext ctx = new CompletionContext(new SearchEntry(completionContext.entry, unfinished), line, column);
-                            suggestions.addAll(get(output, ctx, line, column));
+                            collect(output, staticSymbols, ctx, line, column, suggestions);
                             break;
                         }
                     }
@@ -89,7 +107,7 @@ public class CompletionProvider {
                         BoundNode unfinished = getUnfinished(completionContext.prev, line, column);
                         if (unfinished != null) {
                             CompletionContext ctx = new CompletionContext(new SearchEntry(completionContext.entry, unfinished), line, column);
-                            suggestions.addAll(get(output, ctx, line, column));
+                            collect(output, staticSymbols, ctx, line, column, suggestions);
                             break;
                         }
                     }
@@ -98,30 +116,13 @@ public class CompletionProvider {
                 case PROPERTY_ACCESS_EXPRESSION -> {
                     BoundPropertyAccessExpressionNode node = (BoundPropertyAccessExpressionNode) completionContext.entry.node;
                     SType type = node.callee.type;
-                    String partial = ""; // return all properties/methods and vscode handles the rest
-                    /*if (node.property.getRange().isAfter(line, column)) {
-                        partial = "";
-                    } else {
-                        partial = "";
-                    }*/
-
-                    type.getInstanceProperties().stream()
-                            .filter(p -> p.getName().toLowerCase().startsWith(partial.toLowerCase()))
-                            .forEach(p -> suggestions.add(documentationProvider.getPropertySuggestion(p)));
-                    type.getInstanceMethods().stream()
-                            .filter(m -> m.getName().toLowerCase().startsWith(partial.toLowerCase()))
-                            .forEach(m -> suggestions.add(documentationProvider.getMethodSuggestion(m)));
+                    // return all properties/methods and vscode handles the rest
+                    suggestions.addAll(memberCompletions.get(type));
                 }
                 case METHOD_INVOCATION_EXPRESSION -> {
                     BoundMethodInvocationExpressionNode node = (BoundMethodInvocationExpressionNode) completionContext.entry.node;
                     SType type = node.objectReference.type;
-                    String partial = "";
-                    type.getInstanceProperties().stream()
-                            .filter(p -> p.getName().toLowerCase().startsWith(partial.toLowerCase()))
-                            .forEach(p -> suggestions.add(documentationProvider.getPropertySuggestion(p)));
-                    type.getInstanceMethods().stream()
-                            .filter(m -> m.getName().toLowerCase().startsWith(partial.toLowerCase()))
-                            .forEach(m -> suggestions.add(documentationProvider.getMethodSuggestion(m)));
+                    suggestions.addAll(memberCompletions.get(type));
                 }
                 case VARIABLE_DECLARATION -> {
                     BoundVariableDeclarationNode node = (BoundVariableDeclarationNode) completionContext.entry.node;
@@ -154,10 +155,11 @@ public class CompletionProvider {
         }
         if (canType | canExpression) {
             for (SType type : new SType[] { SBoolean.instance, SInt.instance, SChar.instance, SFloat.instance, SString.instance }) {
-                suggestions.add(documentationProvider.getTypeSuggestion(type));
+                suggestions.add(resolver.register(documentationProvider.getTypeSuggestion(type)));
             }
         }
         if (canExpression) {
+            suggestions.addAll(getStaticConstants(staticSymbols));
             suggestions.addAll(getSymbols(output, completionContext));
             suggestions.add(documentationProvider.getAwaitKeywordSuggestion());
         }
@@ -165,8 +167,6 @@ public class CompletionProvider {
             // TODO: break/continue
             suggestions.addAll(documentationProvider.getCommonStatementStartSuggestions());
         }
-
-        return suggestions;
     }
 
     private BoundNode getUnfinished(BoundNode node, int line, int column) {
@@ -195,8 +195,11 @@ public class CompletionProvider {
         return null;
     }
 
-    private CompletionContext getCompletionContext(BoundCompilationUnitNode unit, int line, int column) {
-        SearchEntry entry = find(null, unit, line, column);
+    private CompletionContext getCompletionContext(BoundCompilationUnitNode unit, PositionIndex index, int line, int column) {
+        SearchEntry entry = null;
+        for (BoundNode node : index.getPath(line, column)) {
+            entry = new SearchEntry(entry, node);
+        }
         if (entry == null) {
             if (unit.getRange().isAfter(line, column)) {
                 return new CompletionContext(ContextType.BEFORE_FIRST, line, column);
@@ -210,11 +213,21 @@ public class CompletionProvider {
         }
     }
 
+    private SuggestionIndex getStaticConstants(StaticSymbolIndex staticSymbols) {
+        return staticConstants.computeIfAbsent(staticSymbols, symbols -> {
+            List<Suggestion> suggestions = new ArrayList<>();
+            for (StaticFieldConstantStaticVariable constant : symbols.getConstants()) {
+                suggestions.add(resolver.register(documentationProvider.getStaticConstantSuggestion(constant)));
+            }
+            return new SuggestionIndex(suggestions);
+        });
+    }
+
+    // script symbols visible from context, static constants are added separately
     private List<Suggestion> getSymbols(BinderOutput output, CompletionContext context) {
         List<Suggestion> list = new ArrayList<>();
 
         if (context.entry == null) {
-            addStaticConstants(list, output.context());
             if (context.type == ContextType.AFTER_LAST) {
                 addStaticVariables(list, output.unit().variables);
                 addFunctions(list, output.unit().functions);
@@ -229,7 +242,6 @@ public class CompletionProvider {
             }
             switch (context.entry.node.getNodeType()) {
                 case COMPILATION_UNIT -> {
-                    addStaticConstants(list, output.context());
                     if (context.prev != null) {
                         if (context.prev.getNodeType() == NodeType.STATIC_VARIABLES_LIST) {
                             addStaticVariables(list, output.unit().variables);
@@ -269,14 +281,6 @@ public class CompletionProvider {
         return nodes;
     }
 
-    private void addStaticConstants(List<Suggestion> suggestions, CompilerContext context) {
-        for (Symbol symbol : context.getStaticSymbols()) {
-            if (symbol instanceof StaticFieldConstantStaticVariable constant) {
-                suggestions.add(documentationProvider.getStaticConstantSuggestion(constant));
-            }
-        }
-    }
-
     private void addStaticVariables(List<Suggestion> suggestions, BoundStaticVariablesListNode node) {
         for (BoundVariableDeclarationNode declaration : node.variables) {
             suggestions.add(documentationProvider.getStaticVariableSuggestion((StaticVariable) declaration.name.symbol));
@@ -297,20 +301,6 @@ public class CompletionProvider {
         }
     }
 
-    private SearchEntry find(SearchEntry parent, BoundNode node, int line, int column) {
-        if (node.getRange().contains(line, column)) {
-            SearchEntry entry = new SearchEntry(parent, node);
-            for (BoundNode child : node.getChildren()) {
-                if (child.getRange().contains(line, column)) {
-                    return find(entry, child, line, column);
-                }
-            }
-            return entry;
-        } else {
-            return null;
-        }
-    }
-
     private record SearchEntry(SearchEntry parent, BoundNode node) {}
 
     private static class CompletionContext {
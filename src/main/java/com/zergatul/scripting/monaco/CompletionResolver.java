@@ -0,0 +1,41 @@
+package com.zergatul.scripting.monaco;
+
+import java.security.SecureRandom;
+
+/*
+    Completion lists only carry label/kind/insert text, detail and documentation are requested
+    by editor for focused item. Only suggestions for long-lived symbols (API members, static constants, types)
+    are registered here, equal suggestions share id, so registry size is normally bounded by exposed API,
+    LRU only protects from unbounded growth.
+*/
+public class CompletionResolver {
+
+    private static final int CAPACITY = 16384;
+
+    // ids are only valid within one process, client can still hold ids issued before restart
+    private final String prefix = Integer.toString(new SecureRandom().nextInt() >>> 1, 36) + ".";
+    private final LruCache<Suggestion, Suggestion> registered = new LruCache<>(CAPACITY);
+    private final LruCache<String, Suggestion> details = new LruCache<>(CAPACITY);
+    private long nextId;
+
+    public Suggestion register(Suggestion suggestion) {
+        if (suggestion.detail() == null && suggestion.documentation() == null) {
+            return suggestion;
+        }
+        synchronized (this) {
+            Suggestion result = registered.get(suggestion);
+            if (result == null) {
+                String id = prefix + Long.toString(++nextId, 36);
+                details.put(id, suggestion);
+                result = suggestion.withoutDetails(id);
+                registered.put(suggestion, result);
+            }
+            return result;
+        }
+    }
+
+    // null for ids from another process or evicted ones
+    public Suggestion resolve(String id) {
+        return id != null ? details.get(id) : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.zergatul.scripting.monaco;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class Document {
+
+    public static final Duration DEFAULT_VERSION_WAIT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final String id;
+    private final String type;
+    private final long versionWaitTimeout;
+    // fair, so requests for the same document are handled in arrival order
+    private final ReentrantLock lock = new ReentrantLock(true);
+    // guards the fields below, not a monitor so waiting for a version does not pin virtual threads
+    private final ReentrantLock stateLock = new ReentrantLock();
+    private final Condition versionChanged = stateLock.newCondition();
+    private int version;
+    private String code;
+    private EditLog edits = EditLog.EMPTY;
+    // System.nanoTime() of the last request, for eviction of abandoned documents
+    private volatile long lastAccess = System.nanoTime();
+
+    public Document(String id, String type, int version, String code) {
+        this(id, type, version, code, DEFAULT_VERSION_WAIT_TIMEOUT);
+    }
+
+    public Document(String id, String type, int version, String code, Duration versionWaitTimeout) {
+        this.id = id;
+        this.versionWaitTimeout = versionWaitTimeout.toNanos();
+        this.type = type;
+        this.version = version;
+        this.code = code;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    public void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    public SourceSnapshot snapshot() {
+        stateLock.lock();
+        try {
+            return new SourceSnapshot(id, version, code, type, edits);
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    public int getVersion() {
+        stateLock.lock();
+        try {
+            return version;
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    /*
+        Monaco emits changes of one event against the model before the event,
+        sorted from the end of the text, so applying them one by one is safe.
+    */
+    public void apply(int version, List<TextChange> changes) throws InterruptedException {
+        stateLock.lockInterruptibly();
+        try {
+            // change requests are sent concurrently and may arrive out of order
+            awaitVersion(version - 1);
+            if (this.version != version - 1) {
+                throw new RequestException(409, "Document " + id + " is at version " + this.version + ", cannot apply version " + version);
+            }
+
+            StringBuilder builder = new StringBuilder(code);
+            // unchanged prefix and suffix against the previous version, so tokenizer does not need to diff texts
+            int prefix = code.length();
+            int suffix = code.length();
+            for (TextChange change : changes) {
+                int start = change.rangeOffset();
+                int end = start + change.rangeLength();
+                if (start < 0 || end > builder.length()) {
+                    throw new RequestException(409, "Change is out of document " + id + " bounds");
+                }
+                prefix = Math.min(prefix, start);
+                suffix = Math.min(suffix, builder.length() - end);
+                builder.replace(start, end, change.text() == null ? "" : change.text());
+            }
+
+            this.code = builder.toString();
+            this.version = version;
+            this.edits = edits.append(version, prefix, suffix);
+            versionChanged.signalAll();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    public SourceSnapshot await(int version) throws InterruptedException {
+        stateLock.lockInterruptibly();
+        try {
+            awaitVersion(version);
+            if (this.version < version) {
+                throw new RequestException(409, "Document " + id + " did not reach version " + version);
+            }
+            return snapshot();
+        } finally {
+            stateLock.unlock();
+        }
+    }
+
+    // caller holds stateLock
+    private void awaitVersion(int version) throws InterruptedException {
+        long remaining = versionWaitTimeout;
+        while (this.version < version) {
+            if (remaining <= 0) {
+                return;
+            }
+            remaining = versionChanged.awaitNanos(remaining);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,152 @@
+package com.zergatul.scripting.monaco;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/*
+    Clients are not guaranteed to close documents (page reload, closed tab, crash), so on open
+    documents idle longer than idle timeout are evicted, and least recently used ones when store is full.
+    Request for evicted document gets 404, client opens it again.
+*/
+public class DocumentStore {
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long idleTimeout;
+    private final Duration versionWaitTimeout;
+    // releases per-document state kept outside the store, called on close and on eviction
+    private final Consumer<String> onRemove;
+
+    /*
+        "versionWaitTimeout" is how long a request waits for a change which is still on the way.
+        Should be zero when all requests run on one thread, waiting there would block the change itself.
+    */
+    public DocumentStore(int capacity, Duration idleTimeout, Duration versionWaitTimeout, Consumer<String> onRemove) {
+        this.capacity = capacity;
+        this.idleTimeout = idleTimeout.toNanos();
+        this.versionWaitTimeout = versionWaitTimeout;
+        this.onRemove = onRemove;
+    }
+
+    public Document open(String type, int version, String code) {
+        evict();
+        String id = UUID.randomUUID().toString();
+        Document document = new Document(id, type == null ? "" : type, version, code == null ? "" : code, versionWaitTimeout);
+        documents.put(id, document);
+        return document;
+    }
+
+    public void change(String id, int version, List<TextChange> changes) throws InterruptedException {
+        get(id).apply(version, changes);
+    }
+
+    public void close(String id) {
+        if (documents.remove(id) != null) {
+            onRemove.accept(id);
+        }
+    }
+
+    public Document get(String id) {
+        Document document = documents.get(id);
+        if (document == null) {
+            throw new RequestException(404, "Unknown document " + id);
+        }
+        document.touch();
+        return document;
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    private void evict() {
+        long now = System.nanoTime();
+        for (Document document : documents.values()) {
+            if (now - document.getLastAccess() > idleTimeout) {
+                close(document.getId());
+            }
+        }
+
+        // normally one document over capacity, linear scan is cheaper than keeping access order
+        while (documents.size() >= capacity) {
+            Document oldest = null;
+            for (Document document : documents.values()) {
+                if (oldest == null || document.getLastAccess() < oldest.getLastAccess()) {
+                    oldest = document;
+                }
+            }
+            if (oldest == null) {
+                break;
+            }
+            close(oldest.getId());
+        }
+    }
+
+    /*
+        Takes the document lock, so requests for one document are processed one at a time,
+        while requests for other documents run concurrently.
+        Snapshot and analysis are immutable, so lease should be closed before the response is written.
+    */
+    public Lease acquire(SourceRequest request) throws InterruptedException {
+        if (request.document() == null) {
+            return new Lease(null, snapshot(request));
+        }
+
+        Document document = get(request.document());
+        document.getLock().lockInterruptibly();
+        try {
+            // while request was queued behind others, client could already move to the next version
+            SourceSnapshot snapshot = document.await(request.version());
+            if (snapshot.version() > request.version()) {
+                throw new StaleRequestException(document.getId(), request.version());
+            }
+            return new Lease(document, snapshot);
+        } catch (Throwable e) {
+            document.getLock().unlock();
+            throw e;
+        }
+    }
+
+    public SourceSnapshot snapshot(SourceRequest request) throws InterruptedException {
+        if (request.document() == null) {
+            // most likely client failed to open the document, analyzing empty text would give wrong results
+            if (request.code() == null) {
+                throw new RequestException(400, "Request has neither code nor document");
+            }
+            return new SourceSnapshot(null, 0, request.code(), request.type());
+        } else {
+            return get(request.document()).await(request.version());
+        }
+    }
+
+    public static class Lease implements AutoCloseable {
+
+        private final Document document;
+        private final SourceSnapshot snapshot;
+
+        private Lease(Document document, SourceSnapshot snapshot) {
+            this.document = document;
+            this.snapshot = snapshot;
+        }
+
+        public SourceSnapshot snapshot() {
+            return snapshot;
+        }
+
+        // true when newer version of the document arrived after the snapshot was taken
+        public boolean isStale() {
+            return document != null && document.getVersion() > snapshot.version();
+        }
+
+        @Override
+        public void close() {
+            if (document != null) {
+                document.getLock().unlock();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.zergatul.scripting.monaco;
+
+import java.util.Arrays;
+
+/*
+    Recent versions of a document as lengths of unchanged prefix and suffix against the previous version.
+    Edits compose by taking minimum of both, so the changed region between any logged version and
+    the latest one is known without comparing texts. Immutable, snapshots share it with the document.
+*/
+public class EditLog {
+
+    private static final int CAPACITY = 32;
+
+    public static final EditLog EMPTY = new EditLog(new int[0], new int[0], new int[0]);
+
+    // oldest first, versions are consecutive
+    private final int[] versions;
+    private final int[] prefixes;
+    private final int[] suffixes;
+
+    private EditLog(int[] versions, int[] prefixes, int[] suffixes) {
+        this.versions = versions;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+    }
+
+    public EditLog append(int version, int prefix, int suffix) {
+        int keep = Math.min(versions.length, CAPACITY - 1);
+        int from = versions.length - keep;
+        int[] newVersions = Arrays.copyOfRange(versions, from, from + keep + 1);
+        int[] newPrefixes = Arrays.copyOfRange(prefixes, from, from + keep + 1);
+        int[] newSuffixes = Arrays.copyOfRange(suffixes, from, from + keep + 1);
+        newVersions[keep] = version;
+        newPrefixes[keep] = prefix;
+        newSuffixes[keep] = suffix;
+        return new EditLog(newVersions, newPrefixes, newSuffixes);
+    }
+
+    // unchanged prefix and suffix between "version" and the latest logged version, null when log does not cover it
+    public Region since(int version) {
+        if (versions.length == 0 || version < versions[0] - 1 || version >= versions[versions.length - 1]) {
+            return null;
+        }
+
+        int prefix = Integer.MAX_VALUE;
+        int suffix = Integer.MAX_VALUE;
+        for (int i = versions.length - 1; i >= 0 && versions[i] > version; i--) {
+            prefix = Math.min(prefix, prefixes[i]);
+            suffix = Math.min(suffix, suffixes[i]);
+        }
+        return new Region(prefix, suffix);
+    }
+
+    public record Region(int prefix, int suffix) {}
+}
\ No newline at end of file
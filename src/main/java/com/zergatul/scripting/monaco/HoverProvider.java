@@ -6,19 +6,56 @@ import com.zergatul.scripting.symbols.*;
 import com.zergatul.scripting.type.*;
 import com.zergatul.scripting.type.operation.BinaryOperation;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class HoverProvider {
 
-    private final Theme theme;
+    private static final int CACHE_SIZE = 4096;
+    private static final String SPAN_END = "</span>";
+
     private final DocumentationProvider documentationProvider;
 
+    // opening tags for each theme color
+    private final String typeSpan;
+    private final String predefinedTypeSpan;
+    private final String descriptionSpan;
+    private final String parameterSpan;
+    private final String methodSpan;
+
+    private final List<String> booleanContent;
+    private final List<String> intContent;
+    private final List<String> charContent;
+    private final List<String> floatContent;
+    private final List<String> stringContent;
+
+    /*
+        Rendered lines for long-lived symbols, one cache per kind, keys are canonical between binds:
+        static constants from StaticSymbolIndex, java classes, and methods by owner class, name and parameter classes.
+        Lines include theme colors, caches belong to the provider which has single theme.
+    */
+    private final IdentityLruCache<StaticFieldConstantStaticVariable, String> constantLines = new IdentityLruCache<>(CACHE_SIZE);
+    private final LruCache<MethodKey, String> methodLines = new LruCache<>(CACHE_SIZE);
+    private final IdentityLruCache<Class<?>, String> typeLines = new IdentityLruCache<>(CACHE_SIZE);
+
     public HoverProvider(Theme theme, DocumentationProvider documentationProvider) {
-        this.theme = theme;
         this.documentationProvider = documentationProvider;
+
+        this.typeSpan = spanStart(theme.getTypeColor());
+        this.predefinedTypeSpan = spanStart(theme.getPredefinedTypeColor());
+        this.descriptionSpan = spanStart(theme.getDescriptionColor());
+        this.parameterSpan = spanStart(theme.getParameterColor());
+        this.methodSpan = spanStart(theme.getMethodColor());
+
+        this.booleanContent = getPredefinedTypeContent("boolean", SBoolean.instance);
+        this.intContent = getPredefinedTypeContent("int", SInt.instance);
+        this.charContent = getPredefinedTypeContent("char", SChar.instance);
+        this.floatContent = getPredefinedTypeContent("float", SFloat.instance);
+        this.stringContent = getPredefinedTypeContent("string", SString.instance);
     }
 
-    public HoverResponse get(BoundNode node) {
+    public HoverResponse get(BoundNode node, StaticSymbolIndex staticSymbols) {
         if (node == null) {
             return null;
         }
@@ -58,7 +95,8 @@ public class HoverProvider {
                     String line = description("(local variable)") + " " + type(local.getType()) + " " + description(local.getName());
                     yield new HoverResponse(line, range);
                 } else if (name.symbol instanceof StaticFieldConstantStaticVariable field) {
-                    String line = description("(external static constant)") + " " + type(field.getType()) + " " + description(field.getName());
+                    StaticFieldConstantStaticVariable constant = staticSymbols.getConstant(field.getName());
+                    String line = constant != null ? cached(constantLines, constant, () -> getStaticConstantLine(constant)) : getStaticConstantLine(field);
                     yield new HoverResponse(line, range);
                 } else if (name.symbol instanceof StaticVariable staticVariable) {
                     String line = description("(static variable)") + " " + type(staticVariable.getType()) + " " + description(staticVariable.getName());
@@ -67,7 +105,7 @@ public class HoverProvider {
                     SFunction type = function.getFunctionType();
                     StringBuilder sb = new StringBuilder();
                     sb.append(type(type.getReturnType())).append(' ');
-                    sb.append(span(theme.getMethodColor(), function.getName()));
+                    sb.append(span(methodSpan, function.getName()));
                     sb.append(description("("));
                     List<MethodParameter> parameters = type.getParameters();
                     for (int i = 0; i < parameters.size(); i++) {
@@ -89,89 +127,135 @@ public class HoverProvider {
                 if (methodReference instanceof UnknownMethodReference) {
                     yield null;
                 }
-                StringBuilder sb = new StringBuilder();
-                sb.append(type(methodReference.getReturn())).append(' ');
-                sb.append(type(methodReference.getOwner()));
-                sb.append(description("."));
-                sb.append(span(theme.getMethodColor(), methodReference.getName()));
-                sb.append(description("("));
-                List<MethodParameter> parameters = methodReference.getParameters();
-                for (int i = 0; i < parameters.size(); i++) {
-                    sb.append(type(parameters.get(i).type())).append(' ');
-                    sb.append(parameter(parameters.get(i).name()));
-                    if (i < parameters.size() - 1) {
-                        sb.append(description(", "));
-                    }
+                MethodKey key = MethodKey.of(methodReference);
+                String line = methodLines.get(key);
+                if (line == null) {
+                    line = getMethodLine(methodReference);
+                    methodLines.put(key, line);
                 }
-                sb.append(description(")"));
-                yield new HoverResponse(sb.toString(), range);
+                yield new HoverResponse(line, range);
             }
             case BINARY_OPERATOR -> {
                 BoundBinaryOperatorNode operator = (BoundBinaryOperatorNode) node;
                 BinaryOperation operation = operator.operation;
-                String line = type(operation.type) + " " + description(operation.operator.toString()) + description("(") + type(operation.left) + " " + parameter("left") + description(",") + " " + type(operation.right) + " " + parameter("right") + description(")");
-                yield new HoverResponse(line, range);
+                yield new HoverResponse(getBinaryOperationLine(operation), range);
             }
             default -> null;
         };
     }
 
+    private String getStaticConstantLine(StaticFieldConstantStaticVariable field) {
+        return description("(external static constant)") + " " + type(field.getType()) + " " + description(field.getName());
+    }
+
+    private String getMethodLine(MethodReference methodReference) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(type(methodReference.getReturn())).append(' ');
+        sb.append(type(methodReference.getOwner()));
+        sb.append(description("."));
+        sb.append(span(methodSpan, methodReference.getName()));
+        sb.append(description("("));
+        List<MethodParameter> parameters = methodReference.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            sb.append(type(parameters.get(i).type())).append(' ');
+            sb.append(parameter(parameters.get(i).name()));
+            if (i < parameters.size() - 1) {
+                sb.append(description(", "));
+            }
+        }
+        sb.append(description(")"));
+        return sb.toString();
+    }
+
+    private String getBinaryOperationLine(BinaryOperation operation) {
+        return type(operation.type) + " " + description(operation.operator.toString()) + description("(") + type(operation.left) + " " + parameter("left") + description(",") + " " + type(operation.right) + " " + parameter("right") + description(")");
+    }
+
+    private static <K> String cached(IdentityLruCache<K, String> cache, K key, Supplier<String> factory) {
+        String line = cache.get(key);
+        if (line == null) {
+            line = factory.get();
+            cache.put(key, line);
+        }
+        return line;
+    }
+
+    private List<String> getPredefinedTypeContent(String name, SType type) {
+        return List.of(predefinedType(name), description(documentationProvider.getTypeDocs(type)));
+    }
+
     private HoverResponse getBoolean(TextRange range) {
-        return new HoverResponse(List.of(predefinedType("boolean"), description(documentationProvider.getTypeDocs(SBoolean.instance))), range);
+        return new HoverResponse(booleanContent, range);
     }
 
     private HoverResponse getInt(TextRange range) {
-        return new HoverResponse(List.of(predefinedType("int"), description(documentationProvider.getTypeDocs(SInt.instance))), range);
+        return new HoverResponse(intContent, range);
     }
 
     private HoverResponse getChar(TextRange range) {
-        return new HoverResponse(List.of(predefinedType("char"), description(documentationProvider.getTypeDocs(SChar.instance))), range);
+        return new HoverResponse(charContent, range);
     }
 
     private HoverResponse getFloat(TextRange range) {
-        return new HoverResponse(List.of(predefinedType("float"), description(documentationProvider.getTypeDocs(SFloat.instance))), range);
+        return new HoverResponse(floatContent, range);
     }
 
     private HoverResponse getString(TextRange range) {
-        return new HoverResponse(List.of(predefinedType("string"), description(documentationProvider.getTypeDocs(SString.instance))), range);
+        return new HoverResponse(stringContent, range);
     }
 
     private String type(SType type) {
         if (type instanceof SPredefinedType) {
             return predefinedType(type.toString());
         } else if (type instanceof SClassType) {
+            // line depends only on java class, which is canonical
             Class<?> clazz = type.getJavaClass();
-            if (clazz.getName().startsWith("com.zergatul.scripting.monaco")) {
-                return span(theme.getTypeColor(), clazz.getSimpleName());
-            } else {
-                return span(theme.getTypeColor(), clazz.getName());
-            }
+            return cached(typeLines, clazz, () -> {
+                if (clazz.getName().startsWith("com.zergatul.scripting.monaco")) {
+                    return span(typeSpan, clazz.getSimpleName());
+                } else {
+                    return span(typeSpan, clazz.getName());
+                }
+            });
         } else {
             return "TODO";
         }
     }
 
     private String predefinedType(String text) {
-        return span(theme.getPredefinedTypeColor(), text);
+        return span(predefinedTypeSpan, text);
     }
 
     private String description(String text) {
-        return span(theme.getDescriptionColor(), text);
+        return span(descriptionSpan, text);
     }
 
     private String parameter(String text) {
-        return span(theme.getParameterColor(), text);
+        return span(parameterSpan, text);
+    }
+
+    private static String spanStart(String color) {
+        return "<span style=\"color:#" + color + ";\">";
     }
 
-    private String span(String color, String text) {
-        return String.format("<span style=\"color:#%s;\">%s</span>", color, escapeHtml(text));
+    private static String span(String start, String text) {
+        return start + escapeHtml(text) + SPAN_END;
     }
 
     public static String escapeHtml(String s) {
+        int i = 0;
+        while (i < s.length() && !needsEscape(s.charAt(i))) {
+            i++;
+        }
+        if (i == s.length()) {
+            return s;
+        }
+
         StringBuilder out = new StringBuilder(Math.max(16, s.length()));
-        for (int i = 0; i < s.length(); i++) {
+        out.append(s, 0, i);
+        for (; i < s.length(); i++) {
             char c = s.charAt(i);
-            if (c > 127 || c == '"' || c == '\'' || c == '<' || c == '>' || c == '&') {
+            if (needsEscape(c)) {
                 out.append("&#");
                 out.append((int) c);
                 out.append(';');
@@ -182,6 +266,38 @@ public class HoverProvider {
         return out.toString();
     }
 
+    // hover lines without markup, for clients which do not render HTML, reverses span() and escapeHtml()
+    public static String toPlainText(String line) {
+        String text = line.replaceAll("<[^>]*>", "");
+        StringBuilder out = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            int end;
+            if (text.startsWith("&#", i) && (end = text.indexOf(';', i)) > i + 2) {
+                out.append((char) Integer.parseInt(text, i + 2, end, 10));
+                i = end + 1;
+            } else {
+                out.append(text.charAt(i++));
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c > 127 || c == '"' || c == '\'' || c == '<' || c == '>' || c == '&';
+    }
+
+    private record MethodKey(Class<?> owner, String name, List<Class<?>> parameters) {
+
+        public static MethodKey of(MethodReference method) {
+            List<Class<?>> parameters = new ArrayList<>(method.getParameters().size());
+            for (MethodParameter parameter : method.getParameters()) {
+                parameters.add(parameter.type().getJavaClass());
+            }
+            return new MethodKey(method.getOwner().getJavaClass(), method.getName(), parameters);
+        }
+    }
+
     public record HoverResponse(List<String> content, TextRange range) {
         public HoverResponse(String line, TextRange range) {
             this(List.of(line), range);
@@ -0,0 +1,47 @@
+package com.zergatul.scripting.monaco;
+
+/*
+    LruCache keyed by reference identity. For symbols and types which define value equality,
+    so two different objects are never served each other's entry.
+*/
+public class IdentityLruCache<K, V> {
+
+    private final LruCache<Key<K>, V> cache;
+
+    public IdentityLruCache(int capacity) {
+        this.cache = new LruCache<>(capacity);
+    }
+
+    public V get(K key) {
+        return cache.get(new Key<>(key));
+    }
+
+    public void put(K key, V value) {
+        cache.put(new Key<>(key), value);
+    }
+
+    public void remove(K key) {
+        cache.remove(new Key<>(key));
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public int getCapacity() {
+        return cache.getCapacity();
+    }
+
+    private record Key<K>(K value) {
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key<?> other && other.value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.TextRange;
+import com.zergatul.scripting.lexer.*;
+import com.zergatul.scripting.monaco.events.LexEvent;
+import com.zergatul.scripting.monaco.metrics.Metrics;
+
+/*
+    Keeps last token list per document. On change only the region around the edit is lexed again,
+    starting from the beginning of the edited line, until new tokens line up with old tokens
+    shifted by the edit length. Everything after that point is reused.
+    Edit region is taken from the document edit log, texts are compared only when log does not cover the change.
+*/
+public class IncrementalTokenizer {
+
+    private static final int MIN_WINDOW = 256;
+
+    private final LruCache<String, State> states;
+
+    public IncrementalTokenizer(int capacity) {
+        this.states = new LruCache<>(capacity);
+    }
+
+    public TokenList tokenize(SourceSnapshot snapshot) {
+        return tokenize(snapshot, null);
+    }
+
+    // when caller already has lexer output for the snapshot, it is used instead of lexing from scratch
+    public TokenList tokenize(SourceSnapshot snapshot, LexerOutput lexerOutput) {
+        String code = snapshot.code();
+        if (snapshot.document() == null) {
+            return lexerOutput != null ? convert(code, lexerOutput) : lex(snapshot, 0, code.length(), 1);
+        }
+
+        State previous = states.get(snapshot.document());
+        if (previous == null) {
+            Metrics.cacheMiss("tokenizer");
+        } else {
+            Metrics.cacheHit("tokenizer");
+        }
+
+        TokenList tokens;
+        if (previous == null) {
+            tokens = lexerOutput != null ? convert(code, lexerOutput) : lex(snapshot, 0, code.length(), 1);
+        } else if (previous.version == snapshot.version() || previous.code.equals(code)) {
+            return previous.tokens;
+        } else {
+            EditLog.Region region = snapshot.edits() != null ? snapshot.edits().since(previous.version) : null;
+            if (region != null) {
+                tokens = relex(previous.tokens, previous.code.length(), snapshot, region.prefix(), region.suffix());
+            } else {
+                tokens = relex(previous.code, previous.tokens, snapshot);
+            }
+        }
+
+        synchronized (states) {
+            // requests for different versions can complete out of order
+            State current = states.get(snapshot.document());
+            if (current == null || current.version <= snapshot.version()) {
+                states.put(snapshot.document(), new State(snapshot.version(), code, tokens));
+            }
+        }
+
+        return tokens;
+    }
+
+    public void remove(String document) {
+        states.remove(document);
+    }
+
+    private TokenList relex(String oldCode, TokenList tokens, SourceSnapshot snapshot) {
+        String code = snapshot.code();
+        int prefix = 0;
+        int maxPrefix = Math.min(oldCode.length(), code.length());
+        while (prefix < maxPrefix && oldCode.charAt(prefix) == code.charAt(prefix)) {
+            prefix++;
+        }
+
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && oldCode.charAt(oldCode.length() - 1 - suffix) == code.charAt(code.length() - 1 - suffix)) {
+            suffix++;
+        }
+
+        return relex(tokens, oldCode.length(), snapshot, prefix, suffix);
+    }
+
+    // "prefix" and "suffix" are lengths of text which is the same in old and new code
+    private TokenList relex(TokenList tokens, int oldLength, SourceSnapshot snapshot, int prefix, int suffix) {
+        String code = snapshot.code();
+        int delta = code.length() - oldLength;
+        int editEnd = code.length() - suffix;
+
+        // token before the edit can be merged with inserted text, take one more and go back to the line start
+        int first = Math.max(0, Math.min(tokens.findAfter(prefix), tokens.size()) - 1);
+        while (first > 0 && tokens.getType(first - 1) != TokenType.LINE_BREAK) {
+            first--;
+        }
+
+        int start = tokens.size() > 0 ? tokens.getOffset(first) : 0;
+        int line = tokens.size() > 0 ? tokens.getLine(first) : 1;
+        int window = Math.max(MIN_WINDOW, 2 * (editEnd - start));
+        while (true) {
+            int end = (int) Math.min(code.length(), (long) editEnd + window);
+            TokenList relexed = lex(snapshot, start, end, line);
+            for (int i = 0; i < relexed.size(); i++) {
+                int offset = relexed.getOffset(i);
+                if (offset < editEnd) {
+                    continue;
+                }
+
+                // text after the edit is the same, so once token boundaries match lexer will produce the same tokens
+                int old = tokens.findStart(offset - delta);
+                if (old >= 0 && tokens.getType(old) == relexed.getType(i) && tokens.getLength(old) == relexed.getLength(i)) {
+                    return tokens.splice(
+                            first, old,
+                            relexed, i,
+                            delta,
+                            relexed.getLine(i) - tokens.getLine(old),
+                            tokens.getLine(old),
+                            relexed.getColumn(i) - tokens.getColumn(old));
+                }
+            }
+
+            if (end == code.length()) {
+                return tokens.splice(first, tokens.size(), relexed, relexed.size(), 0, 0, 0, 0);
+            }
+
+            window *= 2;
+        }
+    }
+
+    private TokenList convert(String code, LexerOutput output) {
+        int[] lineStarts = getLineStarts(code);
+        TokenList tokens = new TokenList(code.length() / 4);
+        for (Token token : output.tokens()) {
+            TextRange range = token.range;
+            int offset = lineStarts[range.getLine1() - 1] + range.getColumn1() - 1;
+            tokens.add(token.type, offset, range.getLine1(), range.getColumn1(), range.getLength());
+        }
+        return tokens;
+    }
+
+    /*
+        Lexes code[start, end), "start" should be at the beginning of the line.
+        When window ends before the end of code, last token can be cut, so tokens touching "end" are dropped.
+    */
+    private TokenList lex(SourceSnapshot snapshot, int start, int end, int line) {
+        String code = snapshot.code();
+        String text = start == 0 && end == code.length() ? code : code.substring(start, end);
+        boolean isEnd = end == code.length();
+
+        int[] lineStarts = getLineStarts(text);
+        LexEvent event = new LexEvent();
+        event.begin();
+        LexerOutput output = new Lexer(new LexerInput(text)).lex();
+        event.finish(snapshot, output, text.length());
+        TokenList tokens = new TokenList(text.length() / 4);
+        for (Token token : output.tokens()) {
+            TextRange range = token.range;
+            int offset = start + lineStarts[range.getLine1() - 1] + range.getColumn1() - 1;
+            if (!isEnd && (token.type == TokenType.END_OF_FILE || offset + range.getLength() >= end)) {
+                break;
+            }
+            tokens.add(token.type, offset, line + range.getLine1() - 1, range.getColumn1(), range.getLength());
+        }
+
+        return tokens;
+    }
+
+    private static int[] getLineStarts(String text) {
+        int count = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+
+        int[] starts = new int[count];
+        int index = 1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                starts[index++] = i + 1;
+            }
+        }
+        return starts;
+    }
+
+    private record State(int version, String code, TokenList tokens) {}
+}
\ No newline at end of file
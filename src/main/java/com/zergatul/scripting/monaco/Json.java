@@ -2,16 +2,21 @@ package com.zergatul.scripting.monaco;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.zergatul.scripting.lexer.TokenType;
-import com.zergatul.scripting.monaco.adapters.ClassTypeAdapterFactory;
-import com.zergatul.scripting.monaco.adapters.NodeTypeAdapter;
-import com.zergatul.scripting.monaco.adapters.TextRangeTypeAdapterFactory;
-import com.zergatul.scripting.monaco.adapters.TokenTypeAdapter;
+import com.zergatul.scripting.monaco.adapters.*;
+import com.zergatul.scripting.monaco.metrics.MeteredInputStream;
+import com.zergatul.scripting.monaco.metrics.Metrics;
+import com.zergatul.scripting.monaco.metrics.Phase;
 import com.zergatul.scripting.parser.NodeType;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 
 public class Json {
@@ -21,6 +26,16 @@ public class Json {
             .registerTypeAdapterFactory(new ClassTypeAdapterFactory())
             .registerTypeAdapter(TokenType.class, new TokenTypeAdapter())
             .registerTypeAdapter(NodeType.class, new NodeTypeAdapter())
+            .registerTypeAdapter(TokenList.class, new TokenListTypeAdapter())
+            // hot response types, written without reflection
+            .registerTypeAdapter(int[].class, new IntArrayTypeAdapter())
+            .registerTypeAdapter(Suggestion.class, new SuggestionTypeAdapter())
+            .registerTypeAdapter(CompletionList.class, new CompletionListTypeAdapter())
+            .registerTypeAdapter(HoverProvider.HoverResponse.class, new HoverResponseTypeAdapter())
+            .registerTypeAdapter(Server.DiagnosticsResponseItem.class, new DiagnosticsResponseItemTypeAdapter())
+            .registerTypeAdapter(Server.AnalyzeResponse.class, new AnalyzeResponseTypeAdapter())
+            .registerTypeAdapter(Server.BatchResponse.class, new BatchResponseTypeAdapter())
+            .registerTypeAdapter(SemanticTokensStore.Result.class, new SemanticTokensResultTypeAdapter())
             .create();
 
     public static byte[] toJson(Object object) {
@@ -33,17 +48,71 @@ public class Json {
         return str.getBytes(StandardCharsets.UTF_8);
     }
 
+    public static <T> T readRequest(HttpExchange exchange, Class<T> type) throws IOException {
+        long start = System.nanoTime();
+        MeteredInputStream body = new MeteredInputStream(exchange.getRequestBody());
+        JsonReader reader = gson.newJsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        T request = gson.fromJson(reader, type);
+
+        // decoder pulls body in chunks, time spent waiting for bytes is reported as read
+        Metrics.record(Phase.READ, body.getNanos());
+        Metrics.record(Phase.DECODE, System.nanoTime() - start - body.getNanos());
+        Metrics.addRequestBytes(body.getBytes());
+        return request;
+    }
+
+    public static boolean acceptsBinary(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        return accept != null && accept.contains("application/octet-stream");
+    }
+
+    // little-endian int32 values, can be used as Uint32Array on client
+    public static void sendBinaryResponse(HttpExchange exchange, int[] data) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(data.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asIntBuffer().put(data);
+        exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+        long start = System.nanoTime();
+        ResponseWriter writer = new ResponseWriter(exchange, 200);
+        try {
+            writer.writeBytes(buffer.array());
+        } catch (Throwable e) {
+            writer.abort();
+            throw e;
+        }
+        writer.close();
+        recordResponse(writer, start);
+    }
+
     public static void sendResponse(HttpExchange exchange, Object object) throws IOException {
-        byte[] bytes = toJson(object);
-        exchange.getResponseHeaders().add("Content-Type", "application/json");
-        exchange.sendResponseHeaders(200, bytes.length);
-        exchange.getResponseBody().write(bytes);
+        sendResponse(exchange, object, object == null ? Object.class : object.getClass());
     }
 
     public static void sendResponse(HttpExchange exchange, Object object, Type type) throws IOException {
-        byte[] bytes = toJson(object, type);
         exchange.getResponseHeaders().add("Content-Type", "application/json");
-        exchange.sendResponseHeaders(200, bytes.length);
-        exchange.getResponseBody().write(bytes);
+        long start = System.nanoTime();
+        ResponseWriter writer = new ResponseWriter(exchange, 200);
+        try {
+            JsonWriter jsonWriter = gson.newJsonWriter(writer);
+            if (object == null) {
+                jsonWriter.nullValue();
+            } else {
+                gson.toJson(object, type, jsonWriter);
+            }
+            jsonWriter.flush();
+        } catch (Throwable e) {
+            // serializer failed in the middle, do not commit 200 with truncated body
+            writer.abort();
+            throw e;
+        }
+        writer.close();
+        recordResponse(writer, start);
+    }
+
+    // serialization and writing are interleaved for large responses, everything outside exchange writes is serialize
+    private static void recordResponse(ResponseWriter writer, long start) {
+        long write = writer.getWriteNanos();
+        Metrics.record(Phase.SERIALIZE, System.nanoTime() - start - write);
+        Metrics.record(Phase.WRITE, write);
+        Metrics.addResponseBytes(writer.getBytesWritten());
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.symbols.StaticFieldConstantStaticVariable;
+import com.zergatul.scripting.type.MethodReference;
+import com.zergatul.scripting.type.PropertyReference;
+import com.zergatul.scripting.type.SClassType;
+import com.zergatul.scripting.type.SType;
+
+import java.util.*;
+
+/*
+    Member suggestions (after ".") per type, built once and indexed by label.
+    Types are exposed API classes, so the set is small and stable, LRU only protects
+    from types which are recreated on every bind.
+    Keys are compared by identity, value equality of types is not relied on. Class types are keyed
+    by their java class, which is canonical, so they still hit when SClassType is recreated.
+*/
+public class MemberCompletions {
+
+    private static final int CAPACITY = 1024;
+    private static final int WARM_UP_DEPTH = 4;
+
+    private final DocumentationProvider documentationProvider;
+    private final CompletionResolver resolver;
+    private final IdentityLruCache<Class<?>, SuggestionIndex> classTypes = new IdentityLruCache<>(CAPACITY);
+    private final IdentityLruCache<SType, SuggestionIndex> otherTypes = new IdentityLruCache<>(CAPACITY);
+
+    public MemberCompletions(DocumentationProvider documentationProvider, CompletionResolver resolver) {
+        this.documentationProvider = documentationProvider;
+        this.resolver = resolver;
+    }
+
+    public SuggestionIndex get(SType type) {
+        if (type instanceof SClassType) {
+            Class<?> clazz = type.getJavaClass();
+            SuggestionIndex index = classTypes.get(clazz);
+            if (index == null) {
+                index = build(type);
+                classTypes.put(clazz, index);
+            }
+            return index;
+        } else {
+            SuggestionIndex index = otherTypes.get(type);
+            if (index == null) {
+                index = build(type);
+                otherTypes.put(type, index);
+            }
+            return index;
+        }
+    }
+
+    // walks types reachable from static constants of the root class, so first completion after "." is already cached
+    public void warmUp(StaticSymbolIndex staticSymbols) {
+        Set<SType> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (StaticFieldConstantStaticVariable constant : staticSymbols.getConstants()) {
+            warmUp(constant.getType(), visited, WARM_UP_DEPTH);
+        }
+    }
+
+    private void warmUp(SType type, Set<SType> visited, int depth) {
+        if (type == null || depth == 0 || !visited.add(type)) {
+            return;
+        }
+
+        get(type);
+        for (PropertyReference property : type.getInstanceProperties()) {
+            warmUp(property.getType(), visited, depth - 1);
+        }
+        for (MethodReference method : type.getInstanceMethods()) {
+            warmUp(method.getReturn(), visited, depth - 1);
+        }
+    }
+
+    private SuggestionIndex build(SType type) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (PropertyReference property : type.getInstanceProperties()) {
+            suggestions.add(resolver.register(documentationProvider.getPropertySuggestion(property)));
+        }
+        for (MethodReference method : type.getInstanceMethods()) {
+            suggestions.add(resolver.register(documentationProvider.getMethodSuggestion(method)));
+        }
+        return new SuggestionIndex(suggestions);
+    }
+}
\ No newline at end of file
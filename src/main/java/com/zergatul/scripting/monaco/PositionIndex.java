@@ -0,0 +1,117 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.TextRange;
+import com.zergatul.scripting.binding.nodes.BoundNode;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    Built once per bound tree. For every node keeps its children with start/end positions
+    packed into longs, so child containing a position is found with binary search
+    instead of calling contains() on every child. Lookup is O(depth * log(children)).
+*/
+public class PositionIndex {
+
+    private final BoundNode root;
+    private final Map<BoundNode, Children> children = new IdentityHashMap<>();
+
+    public PositionIndex(BoundNode root) {
+        this.root = root;
+
+        ArrayDeque<BoundNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            BoundNode node = stack.pop();
+            List<BoundNode> list = node.getChildren();
+            if (list.isEmpty()) {
+                continue;
+            }
+
+            BoundNode[] nodes = list.toArray(BoundNode[]::new);
+            long[] starts = new long[nodes.length];
+            long[] ends = new long[nodes.length];
+            boolean sorted = true;
+            for (int i = 0; i < nodes.length; i++) {
+                TextRange range = nodes[i].getRange();
+                starts[i] = key(range.getLine1(), range.getColumn1());
+                ends[i] = key(range.getLine2(), range.getColumn2());
+                if (i > 0 && (starts[i] < starts[i - 1] || ends[i] < ends[i - 1])) {
+                    sorted = false;
+                }
+                stack.push(nodes[i]);
+            }
+
+            children.put(node, new Children(nodes, starts, ends, sorted));
+        }
+    }
+
+    // innermost node which contains position, null if root doesn't contain it
+    public BoundNode find(int line, int column) {
+        List<BoundNode> path = getPath(line, column);
+        return path.isEmpty() ? null : path.get(path.size() - 1);
+    }
+
+    // chain of nodes containing position, from root to innermost
+    public List<BoundNode> getPath(int line, int column) {
+        if (!root.getRange().contains(line, column)) {
+            return List.of();
+        }
+
+        List<BoundNode> path = new ArrayList<>();
+        long key = key(line, column);
+        BoundNode node = root;
+        while (node != null) {
+            path.add(node);
+            node = findChild(node, key, line, column);
+        }
+        return Collections.unmodifiableList(path);
+    }
+
+    private BoundNode findChild(BoundNode node, long key, int line, int column) {
+        Children entry = children.get(node);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!entry.sorted) {
+            for (BoundNode child : entry.nodes) {
+                if (child.getRange().contains(line, column)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        // first child which doesn't end before position, earlier children cannot contain it
+        int low = 0;
+        int high = entry.nodes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entry.ends[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        // ranges can touch each other, so check following children until they start after position
+        for (int i = low; i < entry.nodes.length && entry.starts[i] <= key; i++) {
+            if (entry.nodes[i].getRange().contains(line, column)) {
+                return entry.nodes[i];
+            }
+        }
+
+        return null;
+    }
+
+    private static long key(int line, int column) {
+        return ((long) line << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private record Children(BoundNode[] nodes, long[] starts, long[] ends, boolean sorted) {}
+}
\ No newline at end of file
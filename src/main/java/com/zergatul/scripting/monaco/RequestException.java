@@ -0,0 +1,17 @@
+package com.zergatul.scripting.monaco;
+
+public class RequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int status;
+
+    public RequestException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,245 @@
+package com.zergatul.scripting.monaco;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.zergatul.scripting.monaco.metrics.MeteredOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    UTF-8 writer over pooled buffer. If whole response fits into the buffer, it is sent
+    with exact Content-Length. Otherwise, response switches to chunked transfer and
+    buffer is flushed every time it is full, so response is never fully materialized in memory.
+
+    When client accepts gzip or deflate and response is at least COMPRESSION_THRESHOLD bytes,
+    body is compressed on the fly while flushing the buffer.
+
+    close() commits the response, abort() must be used instead when producing the body failed.
+*/
+public class ResponseWriter extends Writer {
+
+    private static final BufferPool pool = new BufferPool(16 * 1024, 64);
+    private static final int COMPRESSION_THRESHOLD = Integer.getInteger("jsl.compression.threshold", 1024);
+
+    private final HttpExchange exchange;
+    private final int status;
+    private final String encoding;
+    private byte[] buffer;
+    private int position;
+    private char highSurrogate;
+    private OutputStream stream;
+    private MeteredOutputStream body;
+    private Deflater deflater;
+    private long headersNanos;
+    private boolean closed;
+
+    public ResponseWriter(HttpExchange exchange, int status) {
+        this.exchange = exchange;
+        this.status = status;
+        this.encoding = getEncoding(exchange);
+        this.buffer = pool.acquire();
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+    }
+
+    // time spent sending headers and writing to exchange body, compression is not included
+    public long getWriteNanos() {
+        return headersNanos + (body != null ? body.getNanos() : 0);
+    }
+
+    // bytes sent in body, after compression
+    public long getBytesWritten() {
+        return body != null ? body.getBytes() : 0;
+    }
+
+    // raw bytes, for non-text responses
+    public void writeBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int length = Math.min(bytes.length - offset, buffer.length - position);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+            offset += length;
+        }
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        write((char) c);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            write(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            write(chars[i]);
+        }
+    }
+
+    private void write(char c) throws IOException {
+        if (buffer.length - position < 4) {
+            flushBuffer();
+        }
+
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int code = Character.toCodePoint(high, c);
+                buffer[position++] = (byte) (0xF0 | (code >> 18));
+                buffer[position++] = (byte) (0x80 | ((code >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((code >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (code & 0x3F));
+                return;
+            }
+            buffer[position++] = '?';
+            if (buffer.length - position < 4) {
+                flushBuffer();
+            }
+        }
+
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buffer[position++] = '?';
+        } else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+    }
+
+    @Override
+    public void flush() {
+        // buffer is only written when it is full or on close, otherwise we lose Content-Length for small responses
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            if (highSurrogate != 0) {
+                highSurrogate = 0;
+                buffer[position++] = '?';
+            }
+            if (stream == null) {
+                if (encoding != null && position >= COMPRESSION_THRESHOLD) {
+                    startChunked();
+                } else {
+                    stream = sendHeaders(position == 0 ? -1 : position);
+                }
+            }
+            stream.write(buffer, 0, position);
+            stream.close();
+        } finally {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+
+    /*
+        Releases the buffer without committing response. If nothing was sent yet, caller can still
+        respond with error status. Otherwise status is already on the wire and the exchange must not
+        be closed: closing finishes the body (terminating chunk), so client would take truncated body
+        as complete response. Caller lets exception escape the handler instead, HttpServer then drops the connection.
+    */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        if (deflater != null) {
+            deflater.end();
+        }
+        pool.release(buffer);
+        buffer = null;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (stream == null) {
+            startChunked();
+        }
+        stream.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void startChunked() throws IOException {
+        if (encoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
+        OutputStream body = sendHeaders(0);
+        if (encoding == null) {
+            stream = body;
+        } else if (encoding.equals("gzip")) {
+            stream = new GZIPOutputStream(body, buffer.length) {
+                {
+                    deflater = def;
+                }
+            };
+        } else {
+            // HTTP "deflate" is zlib format, which is DeflaterOutputStream default
+            deflater = new Deflater();
+            stream = new DeflaterOutputStream(body, deflater, buffer.length) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    def.end();
+                }
+            };
+        }
+    }
+
+    private OutputStream sendHeaders(long length) throws IOException {
+        long start = System.nanoTime();
+        exchange.sendResponseHeaders(status, length);
+        headersNanos = System.nanoTime() - start;
+        body = new MeteredOutputStream(exchange.getResponseBody());
+        return body;
+    }
+
+    public static String getEncoding(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (header == null) {
+            return null;
+        }
+
+        boolean deflate = false;
+        for (String part : header.split(",")) {
+            String[] parts = part.split(";");
+            String name = parts[0].trim().toLowerCase();
+            if (parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            if (name.equals("gzip")) {
+                return "gzip";
+            }
+            if (name.equals("deflate")) {
+                deflate = true;
+            }
+        }
+
+        return deflate ? "deflate" : null;
+    }
+}
\ No newline at end of file
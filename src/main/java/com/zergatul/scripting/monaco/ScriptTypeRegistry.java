@@ -0,0 +1,56 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.compiler.CompilationParameters;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/*
+    CompilationParameters and static symbols per script type, built once at startup and shared between requests.
+    CompilerContext is still created per bind with getContext(), binder declares symbols into it,
+    so it cannot be shared between concurrent binds.
+    Unknown types resolve to DEFAULT_TYPE, same as before when every type was compiled against Root.
+*/
+public class ScriptTypeRegistry implements CompilationParametersResolver {
+
+    public static final String DEFAULT_TYPE = "";
+
+    private final Map<String, ScriptType> types;
+    private final ScriptType defaultType;
+
+    public ScriptTypeRegistry(Map<String, Supplier<CompilationParameters>> factories) {
+        Map<String, ScriptType> types = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<CompilationParameters>> entry : factories.entrySet()) {
+            types.put(entry.getKey(), build(entry.getKey(), entry.getValue()));
+        }
+        if (!types.containsKey(DEFAULT_TYPE)) {
+            throw new IllegalArgumentException("Default script type is not registered.");
+        }
+        this.types = Collections.unmodifiableMap(types);
+        this.defaultType = types.get(DEFAULT_TYPE);
+    }
+
+    @Override
+    public CompilationParameters resolve(String type) {
+        return get(type).parameters();
+    }
+
+    public ScriptType get(String type) {
+        ScriptType scriptType = type != null ? types.get(type) : null;
+        return scriptType != null ? scriptType : defaultType;
+    }
+
+    public Collection<ScriptType> getTypes() {
+        return types.values();
+    }
+
+    private static ScriptType build(String name, Supplier<CompilationParameters> factory) {
+        long start = System.nanoTime();
+        CompilationParameters parameters = factory.get();
+        // first context walks root class with reflection, make it happen here instead of first request
+        StaticSymbolIndex staticSymbols = new StaticSymbolIndex(parameters.getContext());
+        return new ScriptType(name, parameters, staticSymbols, System.nanoTime() - start);
+    }
+
+    public record ScriptType(String name, CompilationParameters parameters, StaticSymbolIndex staticSymbols, long buildNanos) {}
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.lexer.TokenType;
+
+public class SemanticTokens {
+
+    // Monaco legend is TokenType.values(), whitespace, line breaks and end of file are skipped
+    private static final int[] MONACO_LEGEND = createMonacoLegend();
+
+    public static int[] encode(TokenList tokens) {
+        return encode(tokens, MONACO_LEGEND);
+    }
+
+    /*
+        Monaco/LSP relative encoding, 5 ints per token:
+            line delta from previous token (0-indexed)
+            column delta from previous token if on the same line, otherwise column (0-indexed)
+            token length
+            token type, index into legend
+            modifiers, always 0
+        "legend" maps TokenType ordinal to legend index, tokens mapped to negative index are skipped.
+    */
+    public static int[] encode(TokenList tokens, int[] legend) {
+        int count = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (legend[tokens.getType(i).ordinal()] >= 0) {
+                count++;
+            }
+        }
+
+        int[] data = new int[count * 5];
+        int index = 0;
+        int prevLine = 1;
+        int prevColumn = 1;
+        for (int i = 0; i < tokens.size(); i++) {
+            int type = legend[tokens.getType(i).ordinal()];
+            if (type < 0) {
+                continue;
+            }
+
+            int line = tokens.getLine(i);
+            int column = tokens.getColumn(i);
+            data[index++] = line - prevLine;
+            data[index++] = line == prevLine ? column - prevColumn : column - 1;
+            data[index++] = tokens.getLength(i);
+            data[index++] = type;
+            data[index++] = 0;
+
+            prevLine = line;
+            prevColumn = column;
+        }
+
+        return data;
+    }
+
+    private static int[] createMonacoLegend() {
+        TokenType[] types = TokenType.values();
+        int[] legend = new int[types.length];
+        for (TokenType type : types) {
+            boolean trivia = type == TokenType.WHITESPACE || type == TokenType.LINE_BREAK || type == TokenType.END_OF_FILE;
+            legend[type.ordinal()] = trivia ? -1 : type.ordinal();
+        }
+        return legend;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.zergatul.scripting.monaco;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    Keeps last encoded semantic tokens per document, so next request can get
+    only edits against previous result, see Monaco SemanticTokensEdits.
+*/
+public class SemanticTokensStore {
+
+    private final LruCache<String, Entry> entries;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SemanticTokensStore(int capacity) {
+        this.entries = new LruCache<>(capacity);
+    }
+
+    public Result update(String document, int[] data, String previousResultId) {
+        if (document == null) {
+            return new Result(null, data, null);
+        }
+
+        String resultId = document + "/" + sequence.incrementAndGet();
+        // same monitor as release(), so entry cannot be released between reading it and replacing it;
+        // data arrays are never modified, diff against them does not need the lock
+        Entry previous;
+        synchronized (entries) {
+            previous = entries.get(document);
+            entries.put(document, new Entry(resultId, data));
+        }
+
+        if (previous != null && previous.resultId.equals(previousResultId)) {
+            return new Result(resultId, null, diff(previous.data, data));
+        } else {
+            return new Result(resultId, data, null);
+        }
+    }
+
+    public void release(String resultId) {
+        if (resultId == null) {
+            throw new RequestException(400, "Result id is missing");
+        }
+
+        int index = resultId.lastIndexOf('/');
+        if (index < 0) {
+            return;
+        }
+
+        String document = resultId.substring(0, index);
+        synchronized (entries) {
+            Entry entry = entries.get(document);
+            if (entry != null && entry.resultId.equals(resultId)) {
+                entries.remove(document);
+            }
+        }
+    }
+
+    public void remove(String document) {
+        entries.remove(document);
+    }
+
+    // relative encoding keeps everything after the edited line the same, so one splice is enough
+    private static List<Edit> diff(int[] previous, int[] current) {
+        int prefix = 0;
+        int maxPrefix = Math.min(previous.length, current.length);
+        while (prefix < maxPrefix && previous[prefix] == current[prefix]) {
+            prefix++;
+        }
+
+        if (prefix == previous.length && prefix == current.length) {
+            return List.of();
+        }
+
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix && previous[previous.length - 1 - suffix] == current[current.length - 1 - suffix]) {
+            suffix++;
+        }
+
+        int[] data = Arrays.copyOfRange(current, prefix, current.length - suffix);
+        return List.of(new Edit(prefix, previous.length - suffix - prefix, data));
+    }
+
+    public record Result(String resultId, int[] data, List<Edit> edits) {}
+
+    public record Edit(int start, int deleteCount, int[] data) {}
+
+    private record Entry(String resultId, int[] data) {}
+}
\ No newline at end of file
@@ -1,12 +1,9 @@
 package com.zergatul.scripting.monaco;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import com.zergatul.scripting.TextRange;
-import com.zergatul.scripting.binding.Binder;
 import com.zergatul.scripting.binding.BinderOutput;
 import com.zergatul.scripting.binding.nodes.BoundNode;
 import com.zergatul.scripting.compiler.CompilationParameters;
@@ -14,21 +11,68 @@ import com.zergatul.scripting.lexer.Lexer;
 import com.zergatul.scripting.lexer.LexerInput;
 import com.zergatul.scripting.lexer.LexerOutput;
 import com.zergatul.scripting.lexer.TokenType;
+import com.zergatul.scripting.monaco.events.CompletionEvent;
+import com.zergatul.scripting.monaco.events.DefinitionEvent;
+import com.zergatul.scripting.monaco.events.HoverEvent;
+import com.zergatul.scripting.monaco.events.LexEvent;
+import com.zergatul.scripting.monaco.metrics.Metrics;
+import com.zergatul.scripting.monaco.metrics.Phase;
 import com.zergatul.scripting.parser.NodeType;
-import com.zergatul.scripting.parser.Parser;
-import com.zergatul.scripting.parser.ParserOutput;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.nio.charset.Charset;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Server {
 
+    private static final int ANALYSIS_CACHE_SIZE = 32;
+    private static final int TOKENIZER_CACHE_SIZE = 256;
+
+    /*
+        -Djsl.documents.max=N limits number of open documents, least recently used are evicted
+        -Djsl.documents.idle.timeout=S evicts documents without requests for S seconds
+    */
+    private static final int MAX_DOCUMENTS = Integer.getInteger("jsl.documents.max", 1024);
+    private static final Duration DOCUMENT_IDLE_TIMEOUT = Duration.ofSeconds(Long.getLong("jsl.documents.idle.timeout", 1800));
+
+    /*
+        -Djsl.executor=virtual|platform|dispatcher
+            virtual: thread per request on virtual threads (default)
+            platform: cached pool of platform threads
+            dispatcher: everything on the single HttpServer dispatcher thread
+        -Djsl.analysis.threads=N limits number of concurrent lex/parse/bind runs, defaults to number of cores
+    */
+    private static final String EXECUTOR_MODE = System.getProperty("jsl.executor", "virtual");
+    private static final int ANALYSIS_THREADS = Integer.getInteger("jsl.analysis.threads", Runtime.getRuntime().availableProcessors());
+
+    /*
+        -Djsl.web.dir=path serves web assets from directory instead of classpath
+        -Djsl.web.watch=true reloads assets from that directory on change, for development
+    */
+    private static final String WEB_DIRECTORY = System.getProperty("jsl.web.dir");
+    private static final boolean WATCH_WEB_DIRECTORY = Boolean.getBoolean("jsl.web.watch");
+    // label for requests to paths which are not handled, so they do not create metric series per path
+    private static final String UNKNOWN_ENDPOINT = "unknown";
+
     public static void main(String[] args) {
+        /*
+            ResponseWriter sends headers and body as separate small writes. With Nagle's algorithm
+            the body waits for ACK of the headers, which client delays by ~40 ms, so every
+            keep-alive request took at least that long. TCP_NODELAY removes the wait, responses
+            are written in one piece from the pooled buffer so it does not add packets.
+            -Dsun.net.httpserver.nodelay=false restores JDK default.
+        */
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+
         HttpServer server;
         try {
             server = HttpServer.create(new InetSocketAddress(5505), 0);
@@ -37,49 +81,133 @@ public class Server {
             return;
         }
 
-        CompilationParametersResolver resolver = new CompilationParametersResolver() {
-            @Override
-            public CompilationParameters resolve(String type) {
-                return new CompilationParameters(Root.class);
-            }
-        };
+        ScriptTypeRegistry scriptTypes = new ScriptTypeRegistry(Map.of(
+                ScriptTypeRegistry.DEFAULT_TYPE, () -> new CompilationParameters(Root.class)));
+        for (ScriptTypeRegistry.ScriptType type : scriptTypes.getTypes()) {
+            System.out.printf("Script type \"%s\" ready in %.1f ms.%n", type.name(), type.buildNanos() / 1e6);
+            Metrics.scriptTypeBuilt(type.name(), type.buildNanos());
+        }
 
         Theme theme = new DarkTheme();
         DocumentationProvider documentationProvider = new DocumentationProvider();
         HoverProvider hoverProvider = new HoverProvider(theme, documentationProvider);
         DefinitionProvider definitionProvider = new DefinitionProvider();
         CompletionProvider completionProvider = new CompletionProvider(documentationProvider);
+        for (ScriptTypeRegistry.ScriptType type : scriptTypes.getTypes()) {
+            completionProvider.warmUp(type.staticSymbols());
+        }
+        AnalysisCache analysisCache = new AnalysisCache(scriptTypes, ANALYSIS_CACHE_SIZE, ANALYSIS_THREADS);
+        IncrementalTokenizer tokenizer = new IncrementalTokenizer(TOKENIZER_CACHE_SIZE);
+        SemanticTokensStore semanticTokensStore = new SemanticTokensStore(TOKENIZER_CACHE_SIZE);
+        ExecutorService executor = createExecutor(EXECUTOR_MODE);
+        // in dispatcher mode request waiting for a change would block the dispatcher which has to read that change
+        Duration versionWaitTimeout = executor != null ? Document.DEFAULT_VERSION_WAIT_TIMEOUT : Duration.ZERO;
+        DocumentStore documentStore = new DocumentStore(MAX_DOCUMENTS, DOCUMENT_IDLE_TIMEOUT, versionWaitTimeout, document -> {
+            tokenizer.remove(document);
+            semanticTokensStore.remove(document);
+        });
+        BatchProcessor batchProcessor = new BatchProcessor(scriptTypes, analysisCache, tokenizer, hoverProvider, definitionProvider, completionProvider, executor);
 
         server.createContext("/code/", new HttpHandler() {
             @Override
             public void handle(HttpExchange exchange) throws IOException {
+                String path = exchange.getRequestURI().getPath();
+                Metrics.Request metrics = Metrics.begin(path);
                 try {
-                    String path = exchange.getRequestURI().getPath();
                     if (path.equals("/code/tokenize")) {
-                        Gson gson = new GsonBuilder().create();
-                        byte[] data = exchange.getRequestBody().readAllBytes();
-                        String request = new String(data, Charset.defaultCharset());
-                        String code = gson.fromJson(request, String.class);
-
-                        Lexer lexer = new Lexer(new LexerInput(code));
-                        LexerOutput output = lexer.lex();
+                        // original endpoint, body is code as JSON string and response is full LexerOutput
+                        String code = Json.readRequest(exchange, String.class);
+                        if (code == null) {
+                            throw new RequestException(400, "Code is missing");
+                        }
+
+                        SourceSnapshot snapshot = new SourceSnapshot(null, 0, code, "");
+                        LexerOutput output = Metrics.time(Phase.LEX, () -> {
+                            LexEvent event = new LexEvent();
+                            event.begin();
+                            LexerOutput result = new Lexer(new LexerInput(code)).lex();
+                            event.finish(snapshot, result);
+                            return result;
+                        });
                         Json.sendResponse(exchange, output);
+                    } else if (path.equals("/code/document/tokenize")) {
+                        TokenizeRequest request = Json.readRequest(exchange, TokenizeRequest.class);
+                        TokenList tokens;
+                        try (DocumentStore.Lease lease = documentStore.acquire(request)) {
+                            SourceSnapshot snapshot = lease.snapshot();
+                            tokens = Metrics.time(Phase.LEX, () -> tokenizer.tokenize(snapshot));
+                        }
+                        Json.sendResponse(exchange, tokens);
+                    } else if (path.equals("/code/semantic-tokens")) {
+                        SemanticTokensRequest request = Json.readRequest(exchange, SemanticTokensRequest.class);
+                        boolean binary = Json.acceptsBinary(exchange);
+                        int[] tokens;
+                        SemanticTokensStore.Result result = null;
+                        try (DocumentStore.Lease lease = documentStore.acquire(request)) {
+                            SourceSnapshot snapshot = lease.snapshot();
+                            TokenList list = Metrics.time(Phase.LEX, () -> tokenizer.tokenize(snapshot));
+                            tokens = Metrics.time(Phase.PROVIDER, () -> SemanticTokens.encode(list));
+                            if (!binary) {
+                                // result ids are issued in version order, so store is updated under the lease
+                                result = Metrics.time(Phase.PROVIDER, () -> semanticTokensStore.update(snapshot.document(), tokens, request.previousResultId));
+                            }
+                        }
+                        if (binary) {
+                            Json.sendBinaryResponse(exchange, tokens);
+                        } else {
+                            Json.sendResponse(exchange, result);
+                        }
+                    } else if (path.equals("/code/semantic-tokens/release")) {
+                        ReleaseSemanticTokensRequest request = Json.readRequest(exchange, ReleaseSemanticTokensRequest.class);
+
+                        semanticTokensStore.release(request.resultId);
+                        Json.sendResponse(exchange, true);
                     } else if (path.equals("/code/diagnostics")) {
-                        Gson gson = new GsonBuilder().create();
-                        byte[] data = exchange.getRequestBody().readAllBytes();
-                        DiagnosticsRequest request = gson.fromJson(new String(data, Charset.defaultCharset()), DiagnosticsRequest.class);
-
-                        LexerInput lexerInput = new LexerInput(request.code);
-                        Lexer lexer = new Lexer(lexerInput);
-                        LexerOutput lexerOutput = lexer.lex();
-
-                        Parser parser = new Parser(lexerOutput);
-                        ParserOutput parserOutput = parser.parse();
-
-                        Binder binder = new Binder(parserOutput, resolver.resolve(request.type).getContext());
-                        BinderOutput binderOutput = binder.bind();
-
-                        Json.sendResponse(exchange, binderOutput.diagnostics().stream().map(d -> new DiagnosticsResponseItem(d.range, d.message)).toArray());
+                        DiagnosticsRequest request = Json.readRequest(exchange, DiagnosticsRequest.class);
+
+                        List<DiagnosticsResponseItem> diagnostics;
+                        try (DocumentStore.Lease lease = documentStore.acquire(request)) {
+                            SourceSnapshot snapshot = lease.snapshot();
+                            BinderOutput binderOutput = analysisCache.get(snapshot, lease::isStale).binderOutput();
+
+                            diagnostics = Metrics.time(Phase.PROVIDER, () -> getDiagnostics(binderOutput));
+                        }
+                        Json.sendResponse(exchange, diagnostics);
+                    } else if (path.equals("/code/analyze")) {
+                        AnalyzeRequest request = Json.readRequest(exchange, AnalyzeRequest.class);
+
+                        AnalyzeResponse response;
+                        try (DocumentStore.Lease lease = documentStore.acquire(request)) {
+                            SourceSnapshot snapshot = lease.snapshot();
+                            boolean withTokens = request.tokens == null || request.tokens;
+                            boolean withDiagnostics = request.diagnostics == null || request.diagnostics;
+
+                            // single lex for both sections, tokenizer reuses lexer output from analysis
+                            Analysis analysis = withDiagnostics ? analysisCache.get(snapshot, lease::isStale) : null;
+                            SemanticTokensStore.Result tokens = null;
+                            if (withTokens) {
+                                TokenList list = Metrics.time(Phase.LEX, () -> tokenizer.tokenize(snapshot, analysis != null ? analysis.lexerOutput() : null));
+                                tokens = Metrics.time(Phase.PROVIDER, () -> semanticTokensStore.update(snapshot.document(), SemanticTokens.encode(list), request.previousResultId));
+                            }
+                            List<DiagnosticsResponseItem> diagnostics = withDiagnostics ? Metrics.time(Phase.PROVIDER, () -> getDiagnostics(analysis.binderOutput())) : null;
+                            response = new AnalyzeResponse(tokens, diagnostics);
+                        }
+                        Json.sendResponse(exchange, response);
+                    } else if (path.equals("/code/document/open")) {
+                        OpenDocumentRequest request = Json.readRequest(exchange, OpenDocumentRequest.class);
+
+                        Document document = documentStore.open(request.type, request.version, request.code);
+                        Json.sendResponse(exchange, new OpenDocumentResponse(document.getId()));
+                    } else if (path.equals("/code/document/change")) {
+                        ChangeDocumentRequest request = Json.readRequest(exchange, ChangeDocumentRequest.class);
+
+                        documentStore.change(request.document, request.version, request.changes);
+                        Json.sendResponse(exchange, request.version);
+                    } else if (path.equals("/code/document/close")) {
+                        CloseDocumentRequest request = Json.readRequest(exchange, CloseDocumentRequest.class);
+
+                        documentStore.close(request.document);
+                        Json.sendResponse(exchange, true);
                     } else if (path.equals("/code/tokens")) {
                         Json.sendResponse(exchange, Arrays.stream(TokenType.values()).map(Enum::name).toArray());
                     } else if (path.equals("/code/nodes")) {
@@ -87,97 +215,129 @@ public class Server {
                     } else if (path.equals("/code/token-rules")) {
                         Json.sendResponse(exchange, Arrays.stream(TokenType.values()).map(type -> new TokenRule(type.name(), theme.getTokenColor(type))).toArray());
                     } else if (path.equals("/code/hover")) {
-                        Gson gson = new GsonBuilder().create();
-                        byte[] data = exchange.getRequestBody().readAllBytes();
-                        HoverRequest request = gson.fromJson(new String(data, Charset.defaultCharset()), HoverRequest.class);
-
-                        LexerInput lexerInput = new LexerInput(request.code);
-                        Lexer lexer = new Lexer(lexerInput);
-                        LexerOutput lexerOutput = lexer.lex();
-
-                        Parser parser = new Parser(lexerOutput);
-                        ParserOutput parserOutput = parser.parse();
-
-                        Binder binder = new Binder(parserOutput, resolver.resolve(request.type).getContext());
-                        BinderOutput binderOutput = binder.bind();
-
-                        BoundNode node = find(binderOutput.unit(), request.line, request.column);
-                        Json.sendResponse(exchange, hoverProvider.get(node));
+                        HoverRequest request = Json.readRequest(exchange, HoverRequest.class);
+
+                        HoverProvider.HoverResponse response;
+                        try (DocumentStore.Lease lease = documentStore.acquire(request)) {
+                            SourceSnapshot snapshot = lease.snapshot();
+                            Analysis analysis = analysisCache.get(snapshot, lease::isStale);
+
+                            response = Metrics.time(Phase.PROVIDER, () -> {
+                                HoverEvent event = new HoverEvent();
+                                event.begin();
+                                BoundNode node = analysis.positionIndex().find(request.line, request.column);
+                                HoverProvider.HoverResponse result = hoverProvider.get(node, scriptTypes.get(snapshot.type()).staticSymbols());
+                                event.finish(snapshot, result != null ? result.content().size() : 0);
+                                return result;
+                            });
+                        }
+                        Json.sendResponse(exchange, response);
                     } else if (path.equals("/code/definition")) {
-                        Gson gson = new GsonBuilder().create();
-                        byte[] data = exchange.getRequestBody().readAllBytes();
-                        HoverRequest request = gson.fromJson(new String(data, Charset.defaultCharset()), HoverRequest.class);
-
-                        LexerInput lexerInput = new LexerInput(request.code);
-                        Lexer lexer = new Lexer(lexerInput);
-                        LexerOutput lexerOutput = lexer.lex();
-
-                        Parser parser = new Parser(lexerOutput);
-                        ParserOutput parserOutput = parser.parse();
-
-                        Binder binder = new Binder(parserOutput, resolver.resolve(request.type).getContext());
-                        BinderOutput binderOutput = binder.bind();
-
-                        BoundNode node = find(binderOutput.unit(), request.line, request.column);
-                        Json.sendResponse(exchange, definitionProvider.get(node), TextRange.class);
+                        HoverRequest request = Json.readRequest(exchange, HoverRequest.class);
+
+                        TextRange range;
+                        try (DocumentStore.Lease lease = documentStore.acquire(request)) {
+                            SourceSnapshot snapshot = lease.snapshot();
+                            Analysis analysis = analysisCache.get(snapshot, lease::isStale);
+
+                            range = Metrics.time(Phase.PROVIDER, () -> {
+                                DefinitionEvent event = new DefinitionEvent();
+                                event.begin();
+                                BoundNode node = analysis.positionIndex().find(request.line, request.column);
+                                TextRange result = definitionProvider.get(node);
+                                event.finish(snapshot, result != null ? 1 : 0);
+                                return result;
+                            });
+                        }
+                        Json.sendResponse(exchange, range, TextRange.class);
                     } else if (path.equals("/code/completion")) {
-                        Gson gson = new GsonBuilder().create();
-                        byte[] data = exchange.getRequestBody().readAllBytes();
-                        CompletionRequest request = gson.fromJson(new String(data, Charset.defaultCharset()), CompletionRequest.class);
-
-                        LexerInput lexerInput = new LexerInput(request.code);
-                        Lexer lexer = new Lexer(lexerInput);
-                        LexerOutput lexerOutput = lexer.lex();
-
-                        Parser parser = new Parser(lexerOutput);
-                        ParserOutput parserOutput = parser.parse();
-
-                        Binder binder = new Binder(parserOutput, resolver.resolve(request.type).getContext());
-                        BinderOutput binderOutput = binder.bind();
-
-                        Json.sendResponse(exchange, completionProvider.get(binderOutput, request.line, request.column));
+                        CompletionRequest request = Json.readRequest(exchange, CompletionRequest.class);
+
+                        CompletionList list;
+                        try (DocumentStore.Lease lease = documentStore.acquire(request)) {
+                            SourceSnapshot snapshot = lease.snapshot();
+                            Analysis analysis = analysisCache.get(snapshot, lease::isStale);
+
+                            int limit = request.limit != null ? request.limit : CompletionProvider.DEFAULT_LIMIT;
+                            if (limit <= 0) {
+                                throw new RequestException(400, "Invalid completion limit " + limit);
+                            }
+                            list = Metrics.time(Phase.PROVIDER, () -> {
+                                CompletionEvent event = new CompletionEvent();
+                                event.begin();
+                                CompletionList result = completionProvider.get(analysis.binderOutput(), scriptTypes.get(snapshot.type()).staticSymbols(), analysis.positionIndex(), request.line, request.column, request.prefix, limit);
+                                event.finish(snapshot, result.suggestions().size());
+                                return result;
+                            });
+                        }
+                        Json.sendResponse(exchange, list);
+                    } else if (path.equals("/code/batch")) {
+                        BatchRequest request = Json.readRequest(exchange, BatchRequest.class);
+
+                        BatchResponse response;
+                        try (DocumentStore.Lease lease = documentStore.acquire(request)) {
+                            List<BatchOperation> operations = request.operations != null ? request.operations : List.of();
+                            response = new BatchResponse(batchProcessor.process(lease.snapshot(), lease::isStale, operations));
+                        }
+                        Json.sendResponse(exchange, response);
+                    } else if (path.equals("/code/completion/resolve")) {
+                        ResolveCompletionRequest request = Json.readRequest(exchange, ResolveCompletionRequest.class);
+                        Suggestion suggestion = Metrics.time(Phase.PROVIDER, () -> completionProvider.resolve(request.id));
+                        if (suggestion == null) {
+                            throw new RequestException(404, "Unknown completion item " + request.id);
+                        }
+                        Json.sendResponse(exchange, suggestion, Suggestion.class);
                     } else {
+                        metrics.setEndpoint(UNKNOWN_ENDPOINT);
                         exchange.sendResponseHeaders(404, 0);
                     }
                     exchange.close();
+                } catch (RequestException e) {
+                    sendError(exchange, e.getStatus(), e);
                 } catch (Throwable e) {
                     e.printStackTrace();
-                    exchange.sendResponseHeaders(503, 0);
-                    exchange.close();
+                    sendError(exchange, 503, e);
+                } finally {
+                    Metrics.end(metrics, exchange.getResponseCode());
                 }
             }
         });
 
-        server.createContext("/", new HttpHandler() {
+        server.createContext("/metrics", new HttpHandler() {
             @Override
             public void handle(HttpExchange exchange) throws IOException {
-                String path = exchange.getRequestURI().getPath();
-                if (path.equals("/")) {
-                    path = "/index.html";
+                exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                ResponseWriter writer = new ResponseWriter(exchange, 200);
+                try {
+                    Metrics.write(writer);
+                } catch (Throwable e) {
+                    writer.abort();
+                    e.printStackTrace();
+                    sendError(exchange, 503, e);
+                    return;
                 }
+                writer.close();
+                exchange.close();
+            }
+        });
 
-                Path filepath = Path.of(".\\src\\main\\resources\\web", path);
-                if (Files.exists(filepath)) {
-                    if (path.endsWith(".js")) {
-                        exchange.getResponseHeaders().add("Content-Type", "text/javascript");
-                    } else if (path.endsWith(".html")) {
-                        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
-                    } else if (path.endsWith(".ttf")) {
-                        exchange.getResponseHeaders().add("Content-Type", "font/ttf");
-                    }
-
-                    long size = Files.size(filepath);
-                    exchange.sendResponseHeaders(200, size);
-                    byte[] data = Files.readAllBytes(filepath);
-                    exchange.getResponseBody().write(data);
-                } else {
-                    exchange.sendResponseHeaders(404, 0);
-                }
+        StaticAssets assets;
+        try {
+            assets = WEB_DIRECTORY != null ? StaticAssets.fromDirectory(Path.of(WEB_DIRECTORY), WATCH_WEB_DIRECTORY) : StaticAssets.fromClasspath("/web");
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
 
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                assets.handle(exchange);
                 exchange.close();
             }
         });
 
+        server.setExecutor(executor);
         server.start();
 
         Scanner scanner = new Scanner(System.in);
@@ -185,30 +345,94 @@ public class Server {
 
         System.out.println("Stopping...");
         server.stop(1);
+        if (executor != null) {
+            executor.shutdown();
+        }
     }
 
-    private static BoundNode find(BoundNode node, int line, int column) {
-        if (node.getRange().contains(line, column)) {
-            for (BoundNode child : node.getChildren()) {
-                if (child.getRange().contains(line, column)) {
-                    return find(child, line, column);
+    public static ExecutorService createExecutor(String mode) {
+        return switch (mode) {
+            case "dispatcher" -> null;
+            case "platform" -> Executors.newCachedThreadPool();
+            case "virtual" -> {
+                // virtual threads are only available on Java 21+, do not require it at compile time
+                try {
+                    yield (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    System.out.println("Virtual threads are not supported by this JVM, using platform threads.");
+                    yield Executors.newCachedThreadPool();
                 }
             }
-            return node;
-        } else {
-            return null;
+            default -> throw new IllegalArgumentException("Unknown executor mode: " + mode);
+        };
+    }
+
+    /*
+        Response could fail after headers were sent, status cannot be changed then. Closing the exchange
+        would finish the body, so exception is thrown out of the handler and HttpServer closes the connection
+        without writing the rest of the response, client sees the request as failed.
+    */
+    private static void sendError(HttpExchange exchange, int status, Throwable cause) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            throw cause instanceof IOException e ? e : new IOException("Response failed after headers were sent", cause);
         }
+        exchange.sendResponseHeaders(status, 0);
+        exchange.close();
+    }
+
+    public static List<DiagnosticsResponseItem> getDiagnostics(BinderOutput output) {
+        return output.diagnostics().stream().map(d -> new DiagnosticsResponseItem(d.range, d.message)).toList();
     }
 
     public record TokenRule(String token, String foreground) {}
 
-    public record DiagnosticsRequest(String code, String type) {}
+    // flat token list, incremental for documents
+    public record TokenizeRequest(String code, String document, int version) implements SourceRequest {
+        @Override
+        public String type() {
+            return "";
+        }
+    }
+
+    public record DiagnosticsRequest(String code, String type, String document, int version) implements SourceRequest {}
 
     public record DiagnosticsResponseItem(TextRange range, String message) {}
 
-    public record HoverRequest(String code, String type, int line, int column) {}
+    public record AnalyzeRequest(String code, String type, String document, int version, Boolean tokens, Boolean diagnostics, String previousResultId) implements SourceRequest {}
+
+    public record AnalyzeResponse(SemanticTokensStore.Result tokens, List<DiagnosticsResponseItem> diagnostics) {}
+
+    public record SemanticTokensRequest(String code, String document, int version, String previousResultId) implements SourceRequest {
+        @Override
+        public String type() {
+            return "";
+        }
+    }
+
+    public record ReleaseSemanticTokensRequest(String resultId) {}
+
+    public record HoverRequest(String code, String type, String document, int version, int line, int column) implements SourceRequest {}
+
+    // prefix is identifier part before cursor, results are ranked against it and cut to limit
+    public record CompletionRequest(String code, String type, String document, int version, int line, int column, String prefix, Integer limit) implements SourceRequest {}
+
+    public record ResolveCompletionRequest(String id) {}
+
+    // operations run against one snapshot, results are returned in the same order
+    public record BatchRequest(String code, String type, String document, int version, List<BatchOperation> operations) implements SourceRequest {}
+
+    // op is one of BatchProcessor operation names, position is used by hover, definition and completion, prefix and limit by completion
+    public record BatchOperation(String op, Integer line, Integer column, String prefix, Integer limit) {}
+
+    public record BatchResponse(List<Object> results) {}
+
+    public record OpenDocumentRequest(String code, String type, int version) {}
+
+    public record OpenDocumentResponse(String document) {}
+
+    public record ChangeDocumentRequest(String document, int version, List<TextChange> changes) {}
 
-    public record CompletionRequest(String code, String type, int line, int column) {}
+    public record CloseDocumentRequest(String document) {}
 
     public static class Root {
         public static final MainApi main = new MainApi();
@@ -0,0 +1,12 @@
+package com.zergatul.scripting.monaco;
+
+/*
+    Request that points to source code, either inline with "code" + "type",
+    or by "document" id + "version" of the opened document session.
+*/
+public interface SourceRequest {
+    String code();
+    String type();
+    String document();
+    int version();
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.zergatul.scripting.monaco;
+
+// edits are known only for snapshots of open documents, null for inline code
+public record SourceSnapshot(String document, int version, String code, String type, EditLog edits) {
+
+    public SourceSnapshot(String document, int version, String code, String type) {
+        this(document, version, code, type, null);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.zergatul.scripting.monaco;
+
+/*
+    410, client moved on to newer version and does not need the result.
+    409 is left for conflicts which mean server copy of the document is out of sync.
+*/
+public class StaleRequestException extends RequestException {
+
+    private static final long serialVersionUID = 1L;
+
+    public StaleRequestException(String document, int version) {
+        super(410, "Document " + document + " version " + version + " is superseded");
+    }
+}
\ No newline at end of file
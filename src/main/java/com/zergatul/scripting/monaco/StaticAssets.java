@@ -0,0 +1,224 @@
+package com.zergatul.scripting.monaco;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    Web assets loaded once into memory, with precomputed ETag, Last-Modified and gzip variant.
+    Source is either directory, or "/web" on the classpath. For directory source
+    file watching can be enabled, then table is reloaded on every change.
+*/
+public class StaticAssets {
+
+    private volatile Map<String, Asset> assets;
+
+    private StaticAssets(Map<String, Asset> assets) {
+        this.assets = assets;
+    }
+
+    public static StaticAssets fromDirectory(Path root, boolean watch) throws IOException {
+        StaticAssets result = new StaticAssets(load(root));
+        if (watch) {
+            result.watch(root);
+        }
+        return result;
+    }
+
+    public static StaticAssets fromClasspath(String root) throws IOException {
+        URL url = StaticAssets.class.getResource(root);
+        if (url == null) {
+            throw new IOException("Resource " + root + " not found.");
+        }
+
+        URI uri;
+        try {
+            uri = url.toURI();
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+
+        if (uri.getScheme().equals("jar")) {
+            try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Map.of())) {
+                return new StaticAssets(load(fileSystem.getPath(root)));
+            }
+        } else {
+            return new StaticAssets(load(Path.of(uri)));
+        }
+    }
+
+    public void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/")) {
+            path = "/index.html";
+        }
+
+        Asset asset = assets.get(path);
+        if (asset == null) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+
+        exchange.getResponseHeaders().add("Content-Type", asset.contentType);
+        exchange.getResponseHeaders().add("ETag", asset.etag);
+        exchange.getResponseHeaders().add("Last-Modified", asset.lastModified);
+        exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && matches(ifNoneMatch, asset.etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+
+        byte[] body = asset.data;
+        if (asset.gzipped != null && "gzip".equals(ResponseWriter.getEncoding(exchange))) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            body = asset.gzipped;
+        }
+
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.getResponseHeaders().add("Content-Length", Integer.toString(body.length));
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private void watch(Path root) throws IOException {
+        WatchService watchService = root.getFileSystem().newWatchService();
+        register(watchService, root);
+
+        Thread thread = new Thread(() -> {
+            while (true) {
+                WatchKey key;
+                try {
+                    key = watchService.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                List<WatchEvent<?>> events = key.pollEvents();
+                key.reset();
+                try {
+                    // watch service is not recursive, directories created after start need their own registration
+                    for (WatchEvent<?> event : events) {
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && key.watchable() instanceof Path parent) {
+                            Path path = parent.resolve((Path) event.context());
+                            if (Files.isDirectory(path)) {
+                                register(watchService, path);
+                            }
+                        }
+                    }
+                    assets = load(root);
+                    System.out.println("Web assets reloaded.");
+                } catch (IOException | UncheckedIOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, "static-assets-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // directory can be moved in together with subdirectories, so whole tree is registered
+    private static void register(WatchService watchService, Path directory) throws IOException {
+        try (Stream<Path> stream = Files.walk(directory)) {
+            for (Path path : stream.filter(Files::isDirectory).toList()) {
+                path.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+    }
+
+    private static boolean matches(String header, String etag) {
+        for (String value : header.split(",")) {
+            value = value.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Map<String, Asset> load(Path root) throws IOException {
+        Map<String, Asset> map = new HashMap<>();
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile).toList();
+        }
+
+        for (Path file : files) {
+            StringBuilder path = new StringBuilder();
+            for (Path part : root.relativize(file)) {
+                path.append('/').append(part);
+            }
+            map.put(path.toString(), createAsset(path.toString(), Files.readAllBytes(file), Files.getLastModifiedTime(file).toInstant().toEpochMilli()));
+        }
+
+        return Map.copyOf(map);
+    }
+
+    private static Asset createAsset(String path, byte[] data, long lastModified) throws IOException {
+        String contentType = getContentType(path);
+        byte[] gzipped = null;
+        if (contentType.startsWith("text/")) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+                gzip.write(data);
+            }
+            if (output.size() < data.length) {
+                gzipped = output.toByteArray();
+            }
+        }
+
+        return new Asset(
+                data,
+                gzipped,
+                contentType,
+                "\"" + hash(data) + "\"",
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(lastModified).atOffset(ZoneOffset.UTC)));
+    }
+
+    private static String getContentType(String path) {
+        if (path.endsWith(".js")) {
+            return "text/javascript";
+        } else if (path.endsWith(".html")) {
+            return "text/html; charset=utf-8";
+        } else if (path.endsWith(".css")) {
+            return "text/css";
+        } else if (path.endsWith(".ttf")) {
+            return "font/ttf";
+        } else {
+            return "application/octet-stream";
+        }
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private record Asset(byte[] data, byte[] gzipped, String contentType, String etag, String lastModified) {}
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.compiler.CompilerContext;
+import com.zergatul.scripting.symbols.StaticFieldConstantStaticVariable;
+import com.zergatul.scripting.symbols.Symbol;
+
+import java.util.*;
+
+/*
+    Static symbols of script type, collected once from CompilerContext built at startup.
+    Symbols in per-bind contexts are looked up by name to get canonical instance from here,
+    so providers can cache derived data per symbol.
+*/
+public class StaticSymbolIndex {
+
+    private final List<StaticFieldConstantStaticVariable> constants;
+    private final Map<String, Symbol> symbols;
+
+    public StaticSymbolIndex(CompilerContext context) {
+        List<StaticFieldConstantStaticVariable> constants = new ArrayList<>();
+        Map<String, Symbol> symbols = new HashMap<>();
+        for (Symbol symbol : context.getStaticSymbols()) {
+            if (symbol instanceof StaticFieldConstantStaticVariable constant) {
+                constants.add(constant);
+            }
+            symbols.putIfAbsent(symbol.getName(), symbol);
+        }
+
+        this.constants = List.copyOf(constants);
+        this.symbols = Map.copyOf(symbols);
+    }
+
+    public List<StaticFieldConstantStaticVariable> getConstants() {
+        return constants;
+    }
+
+    public Symbol get(String name) {
+        return symbols.get(name);
+    }
+
+    public StaticFieldConstantStaticVariable getConstant(String name) {
+        return symbols.get(name) instanceof StaticFieldConstantStaticVariable constant ? constant : null;
+    }
+}
\ No newline at end of file
@@ -1,8 +1,13 @@
 package com.zergatul.scripting.monaco;
 
-public record Suggestion(String label, String detail, String documentation, String insertText, String kind) {
+// id is set for suggestions which have detail/documentation available through /code/completion/resolve
+public record Suggestion(String label, String detail, String documentation, String insertText, String kind, String id) {
 
     public Suggestion(String label, String detail, String documentation, String insertText, CompletionItemKind kind) {
-        this(label, detail, documentation, insertText, kind.getName());
+        this(label, detail, documentation, insertText, kind.getName(), null);
+    }
+
+    public Suggestion withoutDetails(String id) {
+        return new Suggestion(label, null, null, insertText, kind, id);
     }
 }
\ No newline at end of file
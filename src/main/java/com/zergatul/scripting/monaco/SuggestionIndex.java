@@ -0,0 +1,49 @@
+package com.zergatul.scripting.monaco;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// immutable set of suggestions sorted by lowercase label, prefix range is found with binary search
+public class SuggestionIndex {
+
+    private final Suggestion[] suggestions;
+    private final String[] keys;
+
+    public SuggestionIndex(List<Suggestion> list) {
+        this.suggestions = list.toArray(Suggestion[]::new);
+        Arrays.sort(this.suggestions, Comparator.comparing(s -> s.label().toLowerCase(Locale.ROOT)));
+        this.keys = new String[suggestions.length];
+        for (int i = 0; i < suggestions.length; i++) {
+            keys[i] = suggestions[i].label().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public int size() {
+        return suggestions.length;
+    }
+
+    public Suggestion get(int index) {
+        return suggestions[index];
+    }
+
+    public String getKey(int index) {
+        return keys[index];
+    }
+
+    // first index with key >= value
+    public int lowerBound(String value) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(value) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
\ No newline at end of file
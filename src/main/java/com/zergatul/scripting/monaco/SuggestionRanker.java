@@ -0,0 +1,187 @@
+package com.zergatul.scripting.monaco;
+
+import java.util.*;
+
+/*
+    Collects completion candidates and keeps top N by score for the typed prefix.
+    Prefix matches always outrank fuzzy matches. Fuzzy match is subsequence match where first
+    character should start a word, matches on camel-case humps and consecutive characters score higher.
+    "gP" matches "getPosition", "tgl" matches "toggle".
+*/
+public class SuggestionRanker {
+
+    private static final int NO_MATCH = -1;
+    private static final int PREFIX_SCORE = 1 << 20;
+
+    private final String prefix;
+    private final String lowerPrefix;
+    private final int limit;
+    private final PriorityQueue<Entry> heap;
+    private int matched;
+    private boolean truncated;
+
+    public SuggestionRanker(String prefix, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit");
+        }
+        this.prefix = prefix == null ? "" : prefix;
+        this.lowerPrefix = this.prefix.toLowerCase(Locale.ROOT);
+        this.limit = limit;
+        this.heap = new PriorityQueue<>(Math.min(limit, 64) + 1, SuggestionRanker::compare);
+    }
+
+    public void add(Suggestion suggestion) {
+        int score = score(suggestion.label());
+        if (score != NO_MATCH) {
+            offer(suggestion, score);
+        }
+    }
+
+    public void addAll(List<Suggestion> suggestions) {
+        for (Suggestion suggestion : suggestions) {
+            add(suggestion);
+        }
+    }
+
+    public void addAll(SuggestionIndex index) {
+        if (lowerPrefix.isEmpty()) {
+            for (int i = 0; i < index.size(); i++) {
+                offer(index.get(i), 0);
+            }
+            return;
+        }
+
+        int from = index.lowerBound(lowerPrefix);
+        int to = from;
+        while (to < index.size() && index.getKey(to).startsWith(lowerPrefix)) {
+            Suggestion suggestion = index.get(to);
+            offer(suggestion, getPrefixScore(suggestion.label()));
+            to++;
+        }
+
+        if (heap.size() >= limit && heap.peek().score >= PREFIX_SCORE) {
+            // remaining entries can only be fuzzy matches, they will not make it into the result
+            truncated = true;
+            return;
+        }
+
+        for (int i = 0; i < from; i++) {
+            add(index.get(i));
+        }
+        for (int i = to; i < index.size(); i++) {
+            add(index.get(i));
+        }
+    }
+
+    public CompletionList getResult() {
+        Entry[] entries = heap.toArray(Entry[]::new);
+        Arrays.sort(entries, Collections.reverseOrder(SuggestionRanker::compare));
+        List<Suggestion> suggestions = new ArrayList<>(entries.length);
+        for (Entry entry : entries) {
+            suggestions.add(entry.suggestion);
+        }
+        return new CompletionList(truncated || matched > limit, suggestions);
+    }
+
+    private void offer(Suggestion suggestion, int score) {
+        matched++;
+        Entry entry = new Entry(suggestion, score);
+        if (heap.size() < limit) {
+            heap.add(entry);
+        } else if (compare(entry, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    private int score(String label) {
+        if (lowerPrefix.isEmpty()) {
+            return 0;
+        }
+        if (label.regionMatches(true, 0, prefix, 0, prefix.length())) {
+            return getPrefixScore(label);
+        }
+        return getFuzzyScore(label);
+    }
+
+    private int getPrefixScore(String label) {
+        // same case first, then shorter labels
+        int score = PREFIX_SCORE;
+        if (label.startsWith(prefix)) {
+            score += 1 << 10;
+        }
+        return score + (1 << 9) - Math.min(label.length() - prefix.length(), (1 << 9) - 1);
+    }
+
+    private int getFuzzyScore(String label) {
+        int score = 0;
+        int position = 0;
+        for (int i = 0; i < lowerPrefix.length(); i++) {
+            char ch = lowerPrefix.charAt(i);
+            int index;
+            if (i > 0 && position < label.length() && equals(label.charAt(position), ch)) {
+                index = position;
+                score += 4;
+            } else {
+                index = findWordStart(label, ch, position);
+                if (index >= 0) {
+                    score += 8;
+                } else if (i > 0) {
+                    index = find(label, ch, position);
+                    if (index < 0) {
+                        return NO_MATCH;
+                    }
+                    score += 1;
+                } else {
+                    return NO_MATCH;
+                }
+            }
+            position = index + 1;
+        }
+        return score;
+    }
+
+    private static int findWordStart(String label, char ch, int from) {
+        for (int i = from; i < label.length(); i++) {
+            if (equals(label.charAt(i), ch) && isWordStart(label, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int find(String label, char ch, int from) {
+        for (int i = from; i < label.length(); i++) {
+            if (equals(label.charAt(i), ch)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isWordStart(String label, int index) {
+        if (index == 0) {
+            return true;
+        }
+        char prev = label.charAt(index - 1);
+        char current = label.charAt(index);
+        return
+                prev == '_' ||
+                Character.isUpperCase(current) && !Character.isUpperCase(prev) ||
+                Character.isDigit(current) && !Character.isDigit(prev);
+    }
+
+    private static boolean equals(char labelChar, char lowerChar) {
+        return Character.toLowerCase(labelChar) == lowerChar;
+    }
+
+    // worse entries first
+    private static int compare(Entry entry1, Entry entry2) {
+        if (entry1.score != entry2.score) {
+            return Integer.compare(entry1.score, entry2.score);
+        }
+        return entry2.suggestion.label().compareToIgnoreCase(entry1.suggestion.label());
+    }
+
+    private record Entry(Suggestion suggestion, int score) {}
+}
\ No newline at end of file
@@ -0,0 +1,4 @@
+package com.zergatul.scripting.monaco;
+
+// same shape as Monaco IModelContentChange, we only need offsets
+public record TextChange(int rangeOffset, int rangeLength, String text) {}
\ No newline at end of file
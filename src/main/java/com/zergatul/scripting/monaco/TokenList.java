@@ -0,0 +1,132 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.lexer.TokenType;
+
+import java.util.Arrays;
+
+/*
+    Compact token table with absolute offsets, kept per document so
+    unchanged tokens can be shifted instead of lexed again.
+*/
+public class TokenList {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private int size;
+    private int[] offsets;
+    private int[] lines;
+    private int[] columns;
+    private int[] lengths;
+    private int[] types;
+
+    public TokenList(int capacity) {
+        capacity = Math.max(capacity, 16);
+        offsets = new int[capacity];
+        lines = new int[capacity];
+        columns = new int[capacity];
+        lengths = new int[capacity];
+        types = new int[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getOffset(int index) {
+        return offsets[index];
+    }
+
+    public int getEnd(int index) {
+        return offsets[index] + lengths[index];
+    }
+
+    public int getLine(int index) {
+        return lines[index];
+    }
+
+    public int getColumn(int index) {
+        return columns[index];
+    }
+
+    public int getLength(int index) {
+        return lengths[index];
+    }
+
+    public TokenType getType(int index) {
+        return TYPES[types[index]];
+    }
+
+    public void add(TokenType type, int offset, int line, int column, int length) {
+        ensureCapacity(size + 1);
+        offsets[size] = offset;
+        lines[size] = line;
+        columns[size] = column;
+        lengths[size] = length;
+        types[size] = type.ordinal();
+        size++;
+    }
+
+    // index of the first token with end > offset, or size if there is no such token
+    public int findAfter(int offset) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getEnd(mid) <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // index of the token starting exactly at offset, or -1
+    public int findStart(int offset) {
+        int index = Arrays.binarySearch(offsets, 0, size, offset);
+        return index >= 0 ? index : -1;
+    }
+
+    /*
+        Builds new list: tokens [0, from) of this list, then first "count" tokens of replacement,
+        then tokens [to, size) of this list moved by given deltas.
+        Column delta is only applied to tokens located on the line "columnLine".
+    */
+    public TokenList splice(int from, int to, TokenList replacement, int count, int offsetDelta, int lineDelta, int columnLine, int columnDelta) {
+        TokenList result = new TokenList(from + count + size - to);
+        copy(this, 0, result, 0, from);
+        copy(replacement, 0, result, from, count);
+
+        int index = from + count;
+        copy(this, to, result, index, size - to);
+        for (int i = index; i < index + size - to; i++) {
+            if (result.lines[i] == columnLine) {
+                result.columns[i] += columnDelta;
+            }
+            result.offsets[i] += offsetDelta;
+            result.lines[i] += lineDelta;
+        }
+
+        result.size = index + size - to;
+        return result;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (offsets.length < capacity) {
+            int length = Math.max(capacity, offsets.length * 2);
+            offsets = Arrays.copyOf(offsets, length);
+            lines = Arrays.copyOf(lines, length);
+            columns = Arrays.copyOf(columns, length);
+            lengths = Arrays.copyOf(lengths, length);
+            types = Arrays.copyOf(types, length);
+        }
+    }
+
+    private static void copy(TokenList source, int sourceIndex, TokenList destination, int destinationIndex, int count) {
+        System.arraycopy(source.offsets, sourceIndex, destination.offsets, destinationIndex, count);
+        System.arraycopy(source.lines, sourceIndex, destination.lines, destinationIndex, count);
+        System.arraycopy(source.columns, sourceIndex, destination.columns, destinationIndex, count);
+        System.arraycopy(source.lengths, sourceIndex, destination.lengths, destinationIndex, count);
+        System.arraycopy(source.types, sourceIndex, destination.types, destinationIndex, count);
+    }
+}
\ No newline at end of file
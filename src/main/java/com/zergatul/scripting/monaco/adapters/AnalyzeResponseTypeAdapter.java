@@ -0,0 +1,35 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.zergatul.scripting.monaco.Server.AnalyzeResponse;
+
+import java.io.IOException;
+
+public class AnalyzeResponseTypeAdapter extends TypeAdapter<AnalyzeResponse> {
+
+    private static final String TOKENS = "tokens";
+    private static final String DIAGNOSTICS = "diagnostics";
+
+    private final SemanticTokensResultTypeAdapter tokensAdapter = new SemanticTokensResultTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, AnalyzeResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name(TOKENS);
+            tokensAdapter.write(out, response.tokens());
+            out.name(DIAGNOSTICS);
+            DiagnosticsResponseItemTypeAdapter.writeList(out, response.diagnostics());
+            out.endObject();
+        }
+    }
+
+    @Override
+    public AnalyzeResponse read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
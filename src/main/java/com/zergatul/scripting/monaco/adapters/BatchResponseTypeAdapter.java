@@ -0,0 +1,60 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.zergatul.scripting.TextRange;
+import com.zergatul.scripting.monaco.CompletionList;
+import com.zergatul.scripting.monaco.HoverProvider.HoverResponse;
+import com.zergatul.scripting.monaco.Server.BatchResponse;
+import com.zergatul.scripting.monaco.Server.DiagnosticsResponseItem;
+import com.zergatul.scripting.monaco.TokenList;
+
+import java.io.IOException;
+import java.util.List;
+
+// results are written with the adapters of their own endpoints
+public class BatchResponseTypeAdapter extends TypeAdapter<BatchResponse> {
+
+    private static final String RESULTS = "results";
+
+    private final TokenListTypeAdapter tokensAdapter = new TokenListTypeAdapter();
+    private final HoverResponseTypeAdapter hoverAdapter = new HoverResponseTypeAdapter();
+    private final CompletionListTypeAdapter completionAdapter = new CompletionListTypeAdapter();
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void write(JsonWriter out, BatchResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name(RESULTS);
+            out.beginArray();
+            for (Object result : response.results()) {
+                if (result == null) {
+                    out.nullValue();
+                } else if (result instanceof TokenList tokens) {
+                    tokensAdapter.write(out, tokens);
+                } else if (result instanceof List<?> diagnostics) {
+                    DiagnosticsResponseItemTypeAdapter.writeList(out, (List<DiagnosticsResponseItem>) diagnostics);
+                } else if (result instanceof HoverResponse hover) {
+                    hoverAdapter.write(out, hover);
+                } else if (result instanceof TextRange range) {
+                    TextRangeTypeAdapterFactory.write(out, range);
+                } else if (result instanceof CompletionList list) {
+                    completionAdapter.write(out, list);
+                } else {
+                    throw new IllegalArgumentException("Unexpected batch result " + result.getClass());
+                }
+            }
+            out.endArray();
+            out.endObject();
+        }
+    }
+
+    @Override
+    public BatchResponse read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
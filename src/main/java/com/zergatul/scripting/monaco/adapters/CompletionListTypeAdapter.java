@@ -0,0 +1,39 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.zergatul.scripting.monaco.CompletionList;
+import com.zergatul.scripting.monaco.Suggestion;
+
+import java.io.IOException;
+
+public class CompletionListTypeAdapter extends TypeAdapter<CompletionList> {
+
+    private static final String IS_INCOMPLETE = "isIncomplete";
+    private static final String SUGGESTIONS = "suggestions";
+
+    private final SuggestionTypeAdapter suggestionAdapter = new SuggestionTypeAdapter();
+
+    @Override
+    public void write(JsonWriter out, CompletionList list) throws IOException {
+        if (list == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name(IS_INCOMPLETE).value(list.isIncomplete());
+            out.name(SUGGESTIONS);
+            out.beginArray();
+            for (Suggestion suggestion : list.suggestions()) {
+                suggestionAdapter.write(out, suggestion);
+            }
+            out.endArray();
+            out.endObject();
+        }
+    }
+
+    @Override
+    public CompletionList read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.zergatul.scripting.monaco.Server.DiagnosticsResponseItem;
+
+import java.io.IOException;
+import java.util.List;
+
+public class DiagnosticsResponseItemTypeAdapter extends TypeAdapter<DiagnosticsResponseItem> {
+
+    private static final String RANGE = "range";
+    private static final String MESSAGE = "message";
+
+    @Override
+    public void write(JsonWriter out, DiagnosticsResponseItem item) throws IOException {
+        writeItem(out, item);
+    }
+
+    public static void writeList(JsonWriter out, List<DiagnosticsResponseItem> items) throws IOException {
+        if (items == null) {
+            out.nullValue();
+        } else {
+            out.beginArray();
+            for (int i = 0; i < items.size(); i++) {
+                writeItem(out, items.get(i));
+            }
+            out.endArray();
+        }
+    }
+
+    private static void writeItem(JsonWriter out, DiagnosticsResponseItem item) throws IOException {
+        if (item == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name(RANGE);
+            TextRangeTypeAdapterFactory.write(out, item.range());
+            out.name(MESSAGE).value(item.message());
+            out.endObject();
+        }
+    }
+
+    @Override
+    public DiagnosticsResponseItem read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.zergatul.scripting.monaco.HoverProvider.HoverResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+public class HoverResponseTypeAdapter extends TypeAdapter<HoverResponse> {
+
+    private static final String CONTENT = "content";
+    private static final String RANGE = "range";
+
+    @Override
+    public void write(JsonWriter out, HoverResponse response) throws IOException {
+        if (response == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name(CONTENT);
+            List<String> content = response.content();
+            if (content == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (int i = 0; i < content.size(); i++) {
+                    out.value(content.get(i));
+                }
+                out.endArray();
+            }
+            out.name(RANGE);
+            TextRangeTypeAdapterFactory.write(out, response.range());
+            out.endObject();
+        }
+    }
+
+    @Override
+    public HoverResponse read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+// default Gson array adapter boxes every element
+public class IntArrayTypeAdapter extends TypeAdapter<int[]> {
+
+    @Override
+    public void write(JsonWriter out, int[] array) throws IOException {
+        writeArray(out, array);
+    }
+
+    public static void writeArray(JsonWriter out, int[] array) throws IOException {
+        if (array == null) {
+            out.nullValue();
+        } else {
+            out.beginArray();
+            for (int i = 0; i < array.length; i++) {
+                out.value(array[i]);
+            }
+            out.endArray();
+        }
+    }
+
+    @Override
+    public int[] read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.zergatul.scripting.monaco.SemanticTokensStore;
+
+import java.io.IOException;
+import java.util.List;
+
+public class SemanticTokensResultTypeAdapter extends TypeAdapter<SemanticTokensStore.Result> {
+
+    private static final String RESULT_ID = "resultId";
+    private static final String DATA = "data";
+    private static final String EDITS = "edits";
+    private static final String START = "start";
+    private static final String DELETE_COUNT = "deleteCount";
+
+    @Override
+    public void write(JsonWriter out, SemanticTokensStore.Result result) throws IOException {
+        if (result == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name(RESULT_ID).value(result.resultId());
+            out.name(DATA);
+            IntArrayTypeAdapter.writeArray(out, result.data());
+            out.name(EDITS);
+            List<SemanticTokensStore.Edit> edits = result.edits();
+            if (edits == null) {
+                out.nullValue();
+            } else {
+                out.beginArray();
+                for (SemanticTokensStore.Edit edit : edits) {
+                    out.beginObject();
+                    out.name(START).value(edit.start());
+                    out.name(DELETE_COUNT).value(edit.deleteCount());
+                    out.name(DATA);
+                    IntArrayTypeAdapter.writeArray(out, edit.data());
+                    out.endObject();
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+    }
+
+    @Override
+    public SemanticTokensStore.Result read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.zergatul.scripting.monaco.Suggestion;
+
+import java.io.IOException;
+
+public class SuggestionTypeAdapter extends TypeAdapter<Suggestion> {
+
+    private static final String LABEL = "label";
+    private static final String DETAIL = "detail";
+    private static final String DOCUMENTATION = "documentation";
+    private static final String INSERT_TEXT = "insertText";
+    private static final String KIND = "kind";
+    private static final String ID = "id";
+
+    @Override
+    public void write(JsonWriter out, Suggestion suggestion) throws IOException {
+        if (suggestion == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name(LABEL).value(suggestion.label());
+            out.name(DETAIL).value(suggestion.detail());
+            out.name(DOCUMENTATION).value(suggestion.documentation());
+            out.name(INSERT_TEXT).value(suggestion.insertText());
+            out.name(KIND).value(suggestion.kind());
+            out.name(ID).value(suggestion.id());
+            out.endObject();
+        }
+    }
+
+    @Override
+    public Suggestion read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
@@ -21,21 +21,26 @@ public class TextRangeTypeAdapterFactory implements TypeAdapterFactory {
         return null;
     }
 
+    // for adapters of types which contain ranges
+    public static void write(JsonWriter out, TextRange value) throws IOException {
+        if (value == null) {
+            out.nullValue();
+        } else {
+            out.beginObject();
+            out.name("line1").value(value.getLine1());
+            out.name("column1").value(value.getColumn1());
+            out.name("line2").value(value.getLine2());
+            out.name("column2").value(value.getColumn2());
+            out.name("length").value(value.getLength());
+            out.endObject();
+        }
+    }
+
     private static class TextRangeTypeAdapter extends TypeAdapter<TextRange> {
 
         @Override
         public void write(JsonWriter out, TextRange value) throws IOException {
-            if (value == null) {
-                out.nullValue();
-            } else {
-                out.beginObject();
-                out.name("line1").value(value.getLine1());
-                out.name("column1").value(value.getColumn1());
-                out.name("line2").value(value.getLine2());
-                out.name("column2").value(value.getColumn2());
-                out.name("length").value(value.getLength());
-                out.endObject();
-            }
+            TextRangeTypeAdapterFactory.write(out, value);
         }
 
         @Override
@@ -0,0 +1,34 @@
+package com.zergatul.scripting.monaco.adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.zergatul.scripting.monaco.TokenList;
+
+import java.io.IOException;
+
+public class TokenListTypeAdapter extends TypeAdapter<TokenList> {
+
+    @Override
+    public void write(JsonWriter out, TokenList tokens) throws IOException {
+        if (tokens == null) {
+            out.nullValue();
+        } else {
+            out.beginArray();
+            for (int i = 0; i < tokens.size(); i++) {
+                out.beginObject();
+                out.name("type").value(tokens.getType(i).ordinal());
+                out.name("line").value(tokens.getLine(i));
+                out.name("column").value(tokens.getColumn(i));
+                out.name("length").value(tokens.getLength(i));
+                out.endObject();
+            }
+            out.endArray();
+        }
+    }
+
+    @Override
+    public TokenList read(JsonReader in) {
+        throw new RuntimeException();
+    }
+}
\ No newline at end of file
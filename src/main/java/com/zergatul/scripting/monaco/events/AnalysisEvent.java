@@ -0,0 +1,32 @@
+package com.zergatul.scripting.monaco.events;
+
+import com.zergatul.scripting.monaco.SourceSnapshot;
+import jdk.jfr.*;
+
+/*
+    Base for Java Flight Recorder events of analysis pipeline and providers.
+    Usage pattern is begin() before the call and finish(...) after it. Fields are only computed
+    when recording is on and event passes its threshold, so without recording the cost is
+    an allocation JIT can remove and a couple of checks.
+
+    jcmd <pid> JFR.start name=jsl settings=profile filename=jsl.jfr
+
+    Keep helpers here void: JDK 17 fails to register subclasses when abstract event base
+    declares boolean method with parameters.
+*/
+@Category({ "JSL", "Analysis" })
+@StackTrace(false)
+public abstract class AnalysisEvent extends Event {
+
+    @Label("Document Size")
+    @Description("Source length in characters")
+    public int documentSize;
+
+    @Label("Script Type")
+    public String scriptType;
+
+    protected void setSource(SourceSnapshot snapshot) {
+        documentSize = snapshot.code().length();
+        scriptType = snapshot.type();
+    }
+}
\ No newline at end of file
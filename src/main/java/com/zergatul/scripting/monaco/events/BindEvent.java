@@ -0,0 +1,47 @@
+package com.zergatul.scripting.monaco.events;
+
+import com.zergatul.scripting.binding.BinderOutput;
+import com.zergatul.scripting.binding.nodes.BoundNode;
+import com.zergatul.scripting.monaco.SourceSnapshot;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.ArrayDeque;
+
+@Name("com.zergatul.scripting.monaco.Bind")
+@Label("Bind")
+public class BindEvent extends AnalysisEvent {
+
+    @Label("Node Count")
+    @Description("Number of bound nodes")
+    public int nodeCount;
+
+    @Label("Result Size")
+    @Description("Number of diagnostics")
+    public int resultSize;
+
+    public void finish(SourceSnapshot snapshot, BinderOutput output) {
+        end();
+        if (shouldCommit()) {
+            setSource(snapshot);
+            nodeCount = countNodes(output.unit());
+            resultSize = output.diagnostics().size();
+            commit();
+        }
+    }
+
+    private static int countNodes(BoundNode root) {
+        int count = 0;
+        ArrayDeque<BoundNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            BoundNode node = stack.pop();
+            count++;
+            for (BoundNode child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+}
\ No newline at end of file
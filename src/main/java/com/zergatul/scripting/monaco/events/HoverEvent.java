@@ -0,0 +1,8 @@
+package com.zergatul.scripting.monaco.events;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.zergatul.scripting.monaco.Hover")
+@Label("Hover")
+public class HoverEvent extends ProviderEvent {}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.zergatul.scripting.monaco.events;
+
+import com.zergatul.scripting.lexer.LexerOutput;
+import com.zergatul.scripting.lexer.Token;
+import com.zergatul.scripting.monaco.SourceSnapshot;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.zergatul.scripting.monaco.Lex")
+@Label("Lex")
+public class LexEvent extends AnalysisEvent {
+
+    @Label("Result Size")
+    @Description("Number of tokens")
+    public int resultSize;
+
+    @Label("Lexed Size")
+    @Description("Characters lexed, less than document size when tokenizer lexes only the edited region")
+    public int lexedSize;
+
+    public void finish(SourceSnapshot snapshot, LexerOutput output) {
+        finish(snapshot, output, snapshot.code().length());
+    }
+
+    public void finish(SourceSnapshot snapshot, LexerOutput output, int lexedSize) {
+        end();
+        if (shouldCommit()) {
+            setSource(snapshot);
+            this.lexedSize = lexedSize;
+            for (Token ignored : output.tokens()) {
+                resultSize++;
+            }
+            commit();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.zergatul.scripting.monaco.events;
+
+import com.zergatul.scripting.monaco.SourceSnapshot;
+import com.zergatul.scripting.parser.ParserOutput;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.zergatul.scripting.monaco.Parse")
+@Label("Parse")
+public class ParseEvent extends AnalysisEvent {
+
+    @Label("Result Size")
+    @Description("Number of diagnostics")
+    public int resultSize;
+
+    public void finish(SourceSnapshot snapshot, ParserOutput output) {
+        end();
+        if (shouldCommit()) {
+            setSource(snapshot);
+            resultSize = output.diagnostics().size();
+            commit();
+        }
+    }
+}
\ No newline at end of file
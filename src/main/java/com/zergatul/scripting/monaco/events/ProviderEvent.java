@@ -0,0 +1,21 @@
+package com.zergatul.scripting.monaco.events;
+
+import com.zergatul.scripting.monaco.SourceSnapshot;
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+
+@Category({ "JSL", "Provider" })
+public abstract class ProviderEvent extends AnalysisEvent {
+
+    @Label("Result Size")
+    public int resultSize;
+
+    public void finish(SourceSnapshot snapshot, int resultSize) {
+        end();
+        if (shouldCommit()) {
+            setSource(snapshot);
+            this.resultSize = resultSize;
+            commit();
+        }
+    }
+}
\ No newline at end of file
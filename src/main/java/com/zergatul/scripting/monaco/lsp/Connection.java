@@ -0,0 +1,549 @@
+package com.zergatul.scripting.monaco.lsp;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.zergatul.scripting.TextRange;
+import com.zergatul.scripting.binding.nodes.BoundNode;
+import com.zergatul.scripting.monaco.*;
+import com.zergatul.scripting.monaco.events.CompletionEvent;
+import com.zergatul.scripting.monaco.events.DefinitionEvent;
+import com.zergatul.scripting.monaco.events.HoverEvent;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    One client session. Messages are read on the calling thread, in order:
+        notifications (didOpen/didChange/didClose, $/cancelRequest) are applied immediately,
+        requests take document snapshot and are handed to executor, so they are pipelined
+        and responses are sent in completion order.
+    Because changes are applied before later requests are dispatched, each request sees exactly
+    the document version client had when it sent the request.
+
+    LSP positions are zero-based, provider positions are one-based like in Monaco.
+*/
+public class Connection {
+
+
+    private final LanguageServer server;
+    private final MessageReader reader;
+    private final MessageWriter writer;
+    private final Map<String, TextDocument> documents = new ConcurrentHashMap<>();
+    private final Map<JsonElement, PendingRequest> pending = new ConcurrentHashMap<>();
+    // check for the latest version and publish are done together, so older diagnostics never overwrite newer
+    private final Object diagnosticsLock = new Object();
+    private String scriptType = ScriptTypeRegistry.DEFAULT_TYPE;
+    private boolean initialized;
+    private boolean shutdown;
+
+    public Connection(LanguageServer server, MessageReader reader, MessageWriter writer) {
+        this.server = server;
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    public int run() {
+        try {
+            while (true) {
+                JsonElement message;
+                try {
+                    message = reader.read();
+                } catch (JsonParseException e) {
+                    writer.error(null, ResponseError.PARSE_ERROR, e.getMessage());
+                    continue;
+                } catch (ResponseError e) {
+                    writer.error(null, e.getCode(), e.getMessage());
+                    continue;
+                }
+                if (message == null) {
+                    return 1;
+                }
+                if (!message.isJsonObject()) {
+                    writer.error(null, ResponseError.INVALID_REQUEST, "Batches are not supported");
+                    continue;
+                }
+
+                JsonObject object = message.getAsJsonObject();
+                JsonElement method = object.get("method");
+                if (method == null) {
+                    // response to server request, server does not send any
+                    continue;
+                }
+                JsonElement id = object.get("id");
+                if (id != null && !id.isJsonNull() && !id.isJsonPrimitive()) {
+                    writer.error(null, ResponseError.INVALID_REQUEST, "Invalid request id");
+                    continue;
+                }
+                if (!method.isJsonPrimitive() || !method.getAsJsonPrimitive().isString()) {
+                    if (id != null) {
+                        writer.error(id, ResponseError.INVALID_REQUEST, "Method is not a string");
+                    }
+                    continue;
+                }
+
+                // malformed message must not end the session, requests get an error, notifications are dropped
+                String name = method.getAsString();
+                JsonElement params = object.get("params");
+                if (id != null) {
+                    try {
+                        handleRequest(id, name, params);
+                    } catch (ResponseError e) {
+                        writer.error(id, e.getCode(), e.getMessage());
+                    } catch (RuntimeException e) {
+                        writer.error(id, ResponseError.INVALID_PARAMS, e.toString());
+                    }
+                } else if (name.equals("exit")) {
+                    return shutdown ? 0 : 1;
+                } else {
+                    try {
+                        handleNotification(name, params);
+                    } catch (RuntimeException e) {
+                        System.err.println("Cannot handle " + name + ": " + e);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return 1;
+        } finally {
+            for (PendingRequest request : pending.values()) {
+                request.cancelled = true;
+            }
+            for (TextDocument document : documents.values()) {
+                server.getTokenizer().remove(document.snapshot().document());
+            }
+        }
+    }
+
+    // malformed params surface as RuntimeException and are answered with INVALID_PARAMS by run()
+    private void handleRequest(JsonElement id, String method, JsonElement params) throws IOException {
+        if (method.equals("initialize")) {
+            initialize(params != null && params.isJsonObject() ? params.getAsJsonObject() : new JsonObject());
+            writer.result(id, getInitializeResult());
+            return;
+        }
+        if (!initialized) {
+            writer.error(id, ResponseError.SERVER_NOT_INITIALIZED, "Server is not initialized");
+            return;
+        }
+        if (shutdown) {
+            writer.error(id, ResponseError.INVALID_REQUEST, "Server is shutting down");
+            return;
+        }
+
+        switch (method) {
+            case "shutdown" -> {
+                shutdown = true;
+                writer.result(id, JsonNull.INSTANCE);
+            }
+            case "textDocument/hover" -> {
+                TextDocument document = getDocument(params);
+                JsonObject position = params.getAsJsonObject().getAsJsonObject("position");
+                submit(id, request -> hover(request, document, position));
+            }
+            case "textDocument/definition" -> {
+                TextDocument document = getDocument(params);
+                JsonObject position = params.getAsJsonObject().getAsJsonObject("position");
+                submit(id, request -> definition(request, document, position));
+            }
+            case "textDocument/completion" -> {
+                TextDocument document = getDocument(params);
+                JsonObject position = params.getAsJsonObject().getAsJsonObject("position");
+                submit(id, request -> completion(request, document, position));
+            }
+            case "completionItem/resolve" -> {
+                JsonObject item = params.getAsJsonObject();
+                submit(id, request -> resolveCompletion(item));
+            }
+            case "textDocument/semanticTokens/full" -> {
+                TextDocument document = getDocument(params);
+                submit(id, request -> semanticTokens(document));
+            }
+            default -> writer.error(id, ResponseError.METHOD_NOT_FOUND, "Unknown method " + method);
+        }
+    }
+
+    // notifications have no response, malformed ones are logged and dropped by run()
+    private void handleNotification(String method, JsonElement params) throws IOException {
+        if (method.equals("$/cancelRequest")) {
+            PendingRequest request = pending.get(params.getAsJsonObject().get("id"));
+            if (request != null) {
+                request.cancelled = true;
+            }
+            return;
+        }
+        if (!initialized) {
+            return;
+        }
+
+        switch (method) {
+            case "textDocument/didOpen" -> {
+                JsonObject item = params.getAsJsonObject().getAsJsonObject("textDocument");
+                String uri = item.get("uri").getAsString();
+                TextDocument document = new TextDocument(UUID.randomUUID().toString(), uri, item.get("version").getAsInt(), item.get("text").getAsString(), scriptType);
+                TextDocument previous = documents.put(uri, document);
+                if (previous != null) {
+                    server.getTokenizer().remove(previous.snapshot().document());
+                }
+                publishDiagnostics(document);
+            }
+            case "textDocument/didChange" -> {
+                JsonObject object = params.getAsJsonObject();
+                TextDocument document = getDocument(object);
+                int version = object.getAsJsonObject("textDocument").get("version").getAsInt();
+                // changes are applied to a copy, malformed change in the middle leaves document as it was
+                for (JsonElement element : object.getAsJsonArray("contentChanges")) {
+                    JsonObject change = element.getAsJsonObject();
+                    String text = change.get("text").getAsString();
+                    if (change.has("range")) {
+                        JsonObject range = change.getAsJsonObject("range");
+                        JsonObject start = range.getAsJsonObject("start");
+                        JsonObject end = range.getAsJsonObject("end");
+                        document = document.replace(
+                                version,
+                                start.get("line").getAsInt(), start.get("character").getAsInt(),
+                                end.get("line").getAsInt(), end.get("character").getAsInt(),
+                                text);
+                    } else {
+                        document = document.withCode(version, text);
+                    }
+                }
+                documents.put(document.getUri(), document);
+                publishDiagnostics(document);
+            }
+            case "textDocument/didClose" -> {
+                TextDocument document = documents.remove(getDocument(params).getUri());
+                server.getTokenizer().remove(document.snapshot().document());
+                synchronized (diagnosticsLock) {
+                    writer.notification("textDocument/publishDiagnostics", getDiagnosticsParams(document.getUri(), null, new JsonArray()));
+                }
+            }
+            default -> {
+                // initialized, $/setTrace and other optional notifications
+            }
+        }
+    }
+
+    private void initialize(JsonObject params) {
+        JsonElement options = params.get("initializationOptions");
+        if (options != null && options.isJsonObject() && options.getAsJsonObject().has("scriptType")) {
+            scriptType = options.getAsJsonObject().get("scriptType").getAsString();
+        }
+        initialized = true;
+    }
+
+    private JsonObject getInitializeResult() {
+        JsonObject sync = new JsonObject();
+        sync.addProperty("openClose", true);
+        sync.addProperty("change", 2); // incremental
+
+        JsonArray triggerCharacters = new JsonArray();
+        triggerCharacters.add(".");
+        JsonObject completion = new JsonObject();
+        completion.add("triggerCharacters", triggerCharacters);
+        completion.addProperty("resolveProvider", true);
+
+        JsonArray tokenTypes = new JsonArray();
+        for (String type : SemanticTokenLegend.TOKEN_TYPES) {
+            tokenTypes.add(type);
+        }
+        JsonObject legend = new JsonObject();
+        legend.add("tokenTypes", tokenTypes);
+        legend.add("tokenModifiers", new JsonArray());
+        JsonObject semanticTokens = new JsonObject();
+        semanticTokens.add("legend", legend);
+        semanticTokens.addProperty("full", true);
+
+        JsonObject capabilities = new JsonObject();
+        capabilities.addProperty("positionEncoding", "utf-16");
+        capabilities.add("textDocumentSync", sync);
+        capabilities.addProperty("hoverProvider", true);
+        capabilities.addProperty("definitionProvider", true);
+        capabilities.add("completionProvider", completion);
+        capabilities.add("semanticTokensProvider", semanticTokens);
+
+        JsonObject serverInfo = new JsonObject();
+        serverInfo.addProperty("name", "jsl-monaco");
+
+        JsonObject result = new JsonObject();
+        result.add("capabilities", capabilities);
+        result.add("serverInfo", serverInfo);
+        return result;
+    }
+
+    private void submit(JsonElement id, RequestHandler handler) {
+        PendingRequest request = new PendingRequest();
+        pending.put(id, request);
+        server.getExecutor().execute(() -> {
+            try {
+                if (request.cancelled) {
+                    throw new ResponseError(ResponseError.REQUEST_CANCELLED, "Request is cancelled");
+                }
+                writer.result(id, handler.handle(request));
+            } catch (ResponseError e) {
+                send(id, e.getCode(), e.getMessage());
+            } catch (StaleRequestException e) {
+                // analysis is abandoned only on cancel
+                send(id, ResponseError.REQUEST_CANCELLED, "Request is cancelled");
+            } catch (Throwable e) {
+                e.printStackTrace();
+                send(id, ResponseError.INTERNAL_ERROR, e.toString());
+            } finally {
+                pending.remove(id);
+            }
+        });
+    }
+
+    private void send(JsonElement id, int code, String message) {
+        try {
+            writer.error(id, code, message);
+        } catch (IOException e) {
+            // connection is gone, reader thread will notice
+        }
+    }
+
+    private JsonElement hover(PendingRequest request, TextDocument document, JsonObject position) {
+        SourceSnapshot snapshot = document.snapshot();
+        Analysis analysis = server.getAnalysisCache().get(snapshot, request::isCancelled);
+
+        HoverEvent event = new HoverEvent();
+        event.begin();
+        BoundNode node = analysis.positionIndex().find(getLine(position), getColumn(position));
+        HoverProvider.HoverResponse response = server.getHoverProvider().get(node, server.getScriptTypes().get(snapshot.type()).staticSymbols());
+        event.finish(snapshot, response != null ? response.content().size() : 0);
+        if (response == null) {
+            return JsonNull.INSTANCE;
+        }
+
+        // HoverProvider lines are HTML for Monaco, other clients show tags as is, so markup is removed:
+        // signature goes into code block, following lines are documentation text
+        StringBuilder markdown = new StringBuilder();
+        List<String> content = response.content();
+        for (int i = 0; i < content.size(); i++) {
+            String text = HoverProvider.toPlainText(content.get(i));
+            if (i == 0) {
+                markdown.append("```\n").append(text).append("\n```");
+            } else if (!text.isEmpty()) {
+                markdown.append("\n\n").append(text);
+            }
+        }
+        JsonObject contents = new JsonObject();
+        contents.addProperty("kind", "markdown");
+        contents.addProperty("value", markdown.toString());
+
+        JsonObject result = new JsonObject();
+        result.add("contents", contents);
+        if (response.range() != null) {
+            result.add("range", toRange(response.range()));
+        }
+        return result;
+    }
+
+    private JsonElement definition(PendingRequest request, TextDocument document, JsonObject position) {
+        SourceSnapshot snapshot = document.snapshot();
+        Analysis analysis = server.getAnalysisCache().get(snapshot, request::isCancelled);
+
+        DefinitionEvent event = new DefinitionEvent();
+        event.begin();
+        BoundNode node = analysis.positionIndex().find(getLine(position), getColumn(position));
+        TextRange range = server.getDefinitionProvider().get(node);
+        event.finish(snapshot, range != null ? 1 : 0);
+        if (range == null) {
+            return JsonNull.INSTANCE;
+        }
+
+        JsonObject location = new JsonObject();
+        location.addProperty("uri", document.getUri());
+        location.add("range", toRange(range));
+        return location;
+    }
+
+    private JsonElement completion(PendingRequest request, TextDocument document, JsonObject position) {
+        SourceSnapshot snapshot = document.snapshot();
+        Analysis analysis = server.getAnalysisCache().get(snapshot, request::isCancelled);
+
+        // LSP does not send the word being typed, take identifier part before cursor like Monaco getWordUntilPosition
+        String code = document.getCode();
+        int offset = document.getOffset(position.get("line").getAsInt(), position.get("character").getAsInt());
+        int start = offset;
+        while (start > 0 && Character.isJavaIdentifierPart(code.charAt(start - 1))) {
+            start--;
+        }
+        String prefix = code.substring(start, offset);
+
+        CompletionEvent event = new CompletionEvent();
+        event.begin();
+        CompletionList list = server.getCompletionProvider().get(
+                analysis.binderOutput(),
+                server.getScriptTypes().get(snapshot.type()).staticSymbols(),
+                analysis.positionIndex(),
+                getLine(position),
+                getColumn(position),
+                prefix,
+                CompletionProvider.DEFAULT_LIMIT);
+        event.finish(snapshot, list.suggestions().size());
+
+        JsonArray items = new JsonArray(list.suggestions().size());
+        for (Suggestion suggestion : list.suggestions()) {
+            items.add(toCompletionItem(suggestion));
+        }
+        JsonObject result = new JsonObject();
+        result.addProperty("isIncomplete", list.isIncomplete());
+        result.add("items", items);
+        return result;
+    }
+
+    private JsonElement resolveCompletion(JsonObject item) {
+        JsonElement data = item.get("data");
+        if (data == null || !data.isJsonPrimitive()) {
+            return item;
+        }
+        Suggestion suggestion = server.getCompletionProvider().resolve(data.getAsString());
+        if (suggestion == null) {
+            return item;
+        }
+        if (suggestion.detail() != null) {
+            item.addProperty("detail", suggestion.detail());
+        }
+        if (suggestion.documentation() != null) {
+            item.addProperty("documentation", suggestion.documentation());
+        }
+        return item;
+    }
+
+    private JsonElement semanticTokens(TextDocument document) {
+        int[] data = SemanticTokens.encode(server.getTokenizer().tokenize(document.snapshot()), SemanticTokenLegend.INDEXES);
+        JsonArray array = new JsonArray(data.length);
+        for (int value : data) {
+            array.add(value);
+        }
+        JsonObject result = new JsonObject();
+        result.add("data", array);
+        return result;
+    }
+
+    private void publishDiagnostics(TextDocument document) {
+        server.getExecutor().execute(() -> {
+            try {
+                Analysis analysis = server.getAnalysisCache().get(document.snapshot(), () -> documents.get(document.getUri()) != document);
+                JsonArray diagnostics = new JsonArray();
+                for (Server.DiagnosticsResponseItem item : Server.getDiagnostics(analysis.binderOutput())) {
+                    JsonObject diagnostic = new JsonObject();
+                    diagnostic.add("range", toRange(item.range()));
+                    diagnostic.addProperty("severity", 1); // error
+                    diagnostic.addProperty("source", "jsl");
+                    diagnostic.addProperty("message", item.message());
+                    diagnostics.add(diagnostic);
+                }
+                synchronized (diagnosticsLock) {
+                    if (documents.get(document.getUri()) == document) {
+                        writer.notification("textDocument/publishDiagnostics", getDiagnosticsParams(document.getUri(), document.getVersion(), diagnostics));
+                    }
+                }
+            } catch (StaleRequestException e) {
+                // newer version is already queued and will publish
+            } catch (IOException e) {
+                // connection is gone, reader thread will notice
+            } catch (Throwable e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    private TextDocument getDocument(JsonElement params) {
+        String uri = params.getAsJsonObject().getAsJsonObject("textDocument").get("uri").getAsString();
+        TextDocument document = documents.get(uri);
+        if (document == null) {
+            throw new ResponseError(ResponseError.INVALID_PARAMS, "Document " + uri + " is not open");
+        }
+        return document;
+    }
+
+    private static JsonObject getDiagnosticsParams(String uri, Integer version, JsonArray diagnostics) {
+        JsonObject params = new JsonObject();
+        params.addProperty("uri", uri);
+        if (version != null) {
+            params.addProperty("version", version);
+        }
+        params.add("diagnostics", diagnostics);
+        return params;
+    }
+
+    private static JsonObject toCompletionItem(Suggestion suggestion) {
+        JsonObject item = new JsonObject();
+        item.addProperty("label", suggestion.label());
+        item.addProperty("kind", getCompletionItemKind(suggestion.kind()));
+        if (suggestion.detail() != null) {
+            item.addProperty("detail", suggestion.detail());
+        }
+        if (suggestion.documentation() != null) {
+            item.addProperty("documentation", suggestion.documentation());
+        }
+        if (suggestion.insertText() != null) {
+            item.addProperty("insertText", suggestion.insertText());
+        }
+        if (suggestion.id() != null) {
+            item.addProperty("data", suggestion.id());
+        }
+        return item;
+    }
+
+    // Suggestion.kind is Monaco kind name, LSP uses different numbering
+    private static int getCompletionItemKind(String kind) {
+        return switch (kind) {
+            case "Method" -> 2;
+            case "Function" -> 3;
+            case "Variable" -> 6;
+            case "Class" -> 7;
+            case "Module" -> 9;
+            case "Property" -> 10;
+            case "Value" -> 12;
+            case "Keyword" -> 14;
+            case "Constant" -> 21;
+            case "Struct" -> 22;
+            default -> 1; // text
+        };
+    }
+
+    private static JsonObject toRange(TextRange range) {
+        JsonObject result = new JsonObject();
+        result.add("start", toPosition(range.getLine1(), range.getColumn1()));
+        result.add("end", toPosition(range.getLine2(), range.getColumn2()));
+        return result;
+    }
+
+    private static JsonObject toPosition(int line, int column) {
+        JsonObject position = new JsonObject();
+        position.addProperty("line", line - 1);
+        position.addProperty("character", column - 1);
+        return position;
+    }
+
+    private static int getLine(JsonObject position) {
+        return position.get("line").getAsInt() + 1;
+    }
+
+    private static int getColumn(JsonObject position) {
+        return position.get("character").getAsInt() + 1;
+    }
+
+    private static class PendingRequest {
+
+        private volatile boolean cancelled;
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    @FunctionalInterface
+    private interface RequestHandler {
+        JsonElement handle(PendingRequest request);
+    }
+}
\ No newline at end of file
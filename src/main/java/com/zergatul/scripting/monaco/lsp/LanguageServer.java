@@ -0,0 +1,129 @@
+package com.zergatul.scripting.monaco.lsp;
+
+import com.zergatul.scripting.compiler.CompilationParameters;
+import com.zergatul.scripting.monaco.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/*
+    Language Server Protocol mode, JSON-RPC over stdio or TCP instead of HTTP.
+        LanguageServer              single client on stdin/stdout, stdout is reserved for protocol, log goes to stderr
+        LanguageServer --port N     client per connection on loopback port N
+    Providers and caches are shared by all connections, documents belong to connection.
+    -Djsl.executor and -Djsl.analysis.threads have the same meaning as for Server.
+*/
+public class LanguageServer {
+
+    private static final int ANALYSIS_CACHE_SIZE = 32;
+    private static final int TOKENIZER_CACHE_SIZE = 256;
+
+    private final ScriptTypeRegistry scriptTypes;
+    private final HoverProvider hoverProvider;
+    private final DefinitionProvider definitionProvider;
+    private final CompletionProvider completionProvider;
+    private final AnalysisCache analysisCache;
+    private final IncrementalTokenizer tokenizer;
+    private final Executor executor;
+
+    public LanguageServer(ScriptTypeRegistry scriptTypes, Executor executor, int analysisThreads) {
+        DocumentationProvider documentationProvider = new DocumentationProvider();
+        this.scriptTypes = scriptTypes;
+        this.hoverProvider = new HoverProvider(new DarkTheme(), documentationProvider);
+        this.definitionProvider = new DefinitionProvider();
+        this.completionProvider = new CompletionProvider(documentationProvider);
+        for (ScriptTypeRegistry.ScriptType type : scriptTypes.getTypes()) {
+            completionProvider.warmUp(type.staticSymbols());
+        }
+        this.analysisCache = new AnalysisCache(scriptTypes, ANALYSIS_CACHE_SIZE, analysisThreads);
+        this.tokenizer = new IncrementalTokenizer(TOKENIZER_CACHE_SIZE);
+        this.executor = executor;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Integer port = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (!args[i].equals("--stdio")) {
+                System.err.println("Unknown argument: " + args[i]);
+                System.exit(1);
+            }
+        }
+
+        // anything printed by accident would corrupt stdio transport
+        PrintStream stdout = System.out;
+        System.setOut(System.err);
+
+        ScriptTypeRegistry scriptTypes = new ScriptTypeRegistry(Map.of(
+                ScriptTypeRegistry.DEFAULT_TYPE, () -> new CompilationParameters(Server.Root.class)));
+        ExecutorService executorService = Server.createExecutor(System.getProperty("jsl.executor", "virtual"));
+        // dispatcher mode: requests are handled on connection thread one by one
+        Executor executor = executorService != null ? executorService : Runnable::run;
+        int analysisThreads = Integer.getInteger("jsl.analysis.threads", Runtime.getRuntime().availableProcessors());
+        LanguageServer server = new LanguageServer(scriptTypes, executor, analysisThreads);
+
+        if (port == null) {
+            System.exit(server.serve(System.in, stdout));
+        }
+
+        try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.err.println("Listening on " + serverSocket.getLocalSocketAddress());
+            while (true) {
+                Socket socket = serverSocket.accept();
+                // small messages in both directions, do not wait for delayed ACK
+                socket.setTcpNoDelay(true);
+                Thread thread = new Thread(() -> {
+                    try (socket) {
+                        server.serve(socket.getInputStream(), socket.getOutputStream());
+                    } catch (IOException | RuntimeException e) {
+                        e.printStackTrace();
+                    }
+                }, "lsp-" + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+    }
+
+    // blocks until client sends exit or closes the stream, returns exit code required by protocol
+    public int serve(InputStream in, OutputStream out) {
+        return new Connection(this, new MessageReader(in), new MessageWriter(out)).run();
+    }
+
+    public ScriptTypeRegistry getScriptTypes() {
+        return scriptTypes;
+    }
+
+    public HoverProvider getHoverProvider() {
+        return hoverProvider;
+    }
+
+    public DefinitionProvider getDefinitionProvider() {
+        return definitionProvider;
+    }
+
+    public CompletionProvider getCompletionProvider() {
+        return completionProvider;
+    }
+
+    public AnalysisCache getAnalysisCache() {
+        return analysisCache;
+    }
+
+    public IncrementalTokenizer getTokenizer() {
+        return tokenizer;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+}
\ No newline at end of file
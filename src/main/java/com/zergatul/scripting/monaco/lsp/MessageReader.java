@@ -0,0 +1,92 @@
+package com.zergatul.scripting.monaco.lsp;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/*
+    Reads base protocol messages:
+        Content-Length: <bytes>\r\n
+        \r\n
+        <UTF-8 JSON>
+    Other headers (Content-Type) are ignored.
+*/
+public class MessageReader {
+
+    private static final String CONTENT_LENGTH = "content-length:";
+    // -Djsl.lsp.max.message=bytes, larger bodies are skipped and answered with error
+    private static final int MAX_CONTENT_LENGTH = Integer.getInteger("jsl.lsp.max.message", 64 * 1024 * 1024);
+
+    private final InputStream in;
+    private final StringBuilder header = new StringBuilder();
+
+    public MessageReader(InputStream in) {
+        this.in = new BufferedInputStream(in);
+    }
+
+    // null at the end of stream, ResponseError when message is too large, stream stays positioned at the next message
+    public JsonElement read() throws IOException {
+        int length = -1;
+        while (true) {
+            String line = readHeaderLine();
+            if (line == null) {
+                return null;
+            }
+            if (line.isEmpty()) {
+                if (length >= 0) {
+                    break;
+                }
+                // stray line break between messages
+                continue;
+            }
+            if (line.regionMatches(true, 0, CONTENT_LENGTH, 0, CONTENT_LENGTH.length())) {
+                try {
+                    length = Integer.parseInt(line.substring(CONTENT_LENGTH.length()).trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid header: " + line);
+                }
+                if (length < 0) {
+                    throw new IOException("Invalid header: " + line);
+                }
+            }
+        }
+
+        if (length > MAX_CONTENT_LENGTH) {
+            in.skipNBytes(length);
+            throw new ResponseError(ResponseError.INVALID_REQUEST, "Message of " + length + " bytes exceeds limit of " + MAX_CONTENT_LENGTH);
+        }
+
+        byte[] body = in.readNBytes(length);
+        if (body.length < length) {
+            throw new EOFException("Stream ended inside message body");
+        }
+        return JsonParser.parseString(new String(body, StandardCharsets.UTF_8));
+    }
+
+    private String readHeaderLine() throws IOException {
+        header.setLength(0);
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                if (header.isEmpty()) {
+                    return null;
+                }
+                throw new EOFException("Stream ended inside message header");
+            }
+            if (b == '\n') {
+                int end = header.length();
+                if (end > 0 && header.charAt(end - 1) == '\r') {
+                    header.setLength(end - 1);
+                }
+                return header.toString();
+            }
+            // headers are ASCII
+            header.append((char) b);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.zergatul.scripting.monaco.lsp;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// thread safe, responses are written from worker threads as soon as they are ready
+public class MessageWriter {
+
+    // "result": null must be present in response to a request without result
+    private static final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    private final OutputStream out;
+
+    public MessageWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out);
+    }
+
+    public void result(JsonElement id, JsonElement result) throws IOException {
+        JsonObject message = message();
+        message.add("id", id);
+        message.add("result", result != null ? result : JsonNull.INSTANCE);
+        write(message);
+    }
+
+    public void error(JsonElement id, int code, String text) throws IOException {
+        JsonObject error = new JsonObject();
+        error.addProperty("code", code);
+        error.addProperty("message", text);
+
+        JsonObject message = message();
+        message.add("id", id != null ? id : JsonNull.INSTANCE);
+        message.add("error", error);
+        write(message);
+    }
+
+    public void notification(String method, JsonElement params) throws IOException {
+        JsonObject message = message();
+        message.addProperty("method", method);
+        message.add("params", params);
+        write(message);
+    }
+
+    private synchronized void write(JsonObject message) throws IOException {
+        byte[] body = gson.toJson(message).getBytes(StandardCharsets.UTF_8);
+        out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    private static JsonObject message() {
+        JsonObject message = new JsonObject();
+        message.addProperty("jsonrpc", "2.0");
+        return message;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.zergatul.scripting.monaco.lsp;
+
+public class ResponseError extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int PARSE_ERROR = -32700;
+    public static final int INVALID_REQUEST = -32600;
+    public static final int METHOD_NOT_FOUND = -32601;
+    public static final int INVALID_PARAMS = -32602;
+    public static final int INTERNAL_ERROR = -32603;
+    public static final int SERVER_NOT_INITIALIZED = -32002;
+    public static final int REQUEST_CANCELLED = -32800;
+
+    private final int code;
+
+    public ResponseError(int code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.zergatul.scripting.monaco.lsp;
+
+import com.zergatul.scripting.lexer.TokenType;
+
+import java.util.List;
+
+/*
+    LSP clients color semantic tokens by standard token type names, internal TokenType names mean nothing to them.
+    Brackets, separators, whitespace and invalid tokens have no standard type and are not reported.
+*/
+public class SemanticTokenLegend {
+
+    public static final List<String> TOKEN_TYPES = List.of("keyword", "variable", "operator", "number", "string", "comment");
+
+    // legend index by TokenType ordinal, -1 for tokens which are not reported
+    public static final int[] INDEXES = createIndexes();
+
+    private static int[] createIndexes() {
+        TokenType[] types = TokenType.values();
+        int[] indexes = new int[types.length];
+        for (TokenType type : types) {
+            String name = getTokenType(type);
+            indexes[type.ordinal()] = name != null ? TOKEN_TYPES.indexOf(name) : -1;
+        }
+        return indexes;
+    }
+
+    private static String getTokenType(TokenType type) {
+        return switch (type) {
+            case IDENTIFIER -> "variable";
+            case LEFT_PARENTHESES, LEFT_CURLY_BRACKET, LEFT_SQUARE_BRACKET, RIGHT_PARENTHESES, RIGHT_CURLY_BRACKET,
+                 RIGHT_SQUARE_BRACKET, DOT, COMMA, SEMICOLON, COLON -> null;
+            case PLUS, PLUS_PLUS, PLUS_EQUAL, MINUS, MINUS_MINUS, MINUS_EQUAL, ASTERISK, ASTERISK_EQUAL, SLASH,
+                 SLASH_EQUAL, PERCENT, PERCENT_EQUAL, AMPERSAND, AMPERSAND_AMPERSAND, AMPERSAND_EQUAL, PIPE, PIPE_PIPE,
+                 PIPE_EQUAL, EQUAL, EQUAL_EQUAL, EQUAL_GREATER, GREATER, GREATER_EQUAL, LESS, LESS_EQUAL, EXCLAMATION,
+                 EXCLAMATION_EQUAL, QUESTION -> "operator";
+            case BOOLEAN, INT, CHAR, FLOAT, STRING, IF, ELSE, BREAK, CONTINUE, WHILE, FOR, FOREACH, FALSE, TRUE, IN,
+                 NEW, REF, RETURN, STATIC, VOID, ASYNC, AWAIT -> "keyword";
+            case INTEGER_LITERAL, FLOAT_LITERAL, INVALID_NUMBER -> "number";
+            case CHAR_LITERAL, STRING_LITERAL -> "string";
+            case WHITESPACE, LINE_BREAK, END_OF_FILE, INVALID -> null;
+            case COMMENT -> "comment";
+        };
+    }
+}
\ No newline at end of file
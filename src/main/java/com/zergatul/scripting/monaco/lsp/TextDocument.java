@@ -0,0 +1,90 @@
+package com.zergatul.scripting.monaco.lsp;
+
+import com.zergatul.scripting.monaco.SourceSnapshot;
+
+import java.util.Arrays;
+
+/*
+    Immutable version of a document opened by LSP client, each change produces new instance.
+    Positions are zero-based line and UTF-16 character, same as Java chars.
+*/
+public class TextDocument {
+
+    private final String id;
+    private final String uri;
+    private final int version;
+    private final String code;
+    private final String type;
+    private volatile int[] lineStarts;
+
+    public TextDocument(String id, String uri, int version, String code, String type) {
+        this.id = id;
+        this.uri = uri;
+        this.version = version;
+        this.code = code;
+        this.type = type;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    // id is unique per open, so documents with the same uri on different connections do not share tokenizer state
+    public SourceSnapshot snapshot() {
+        return new SourceSnapshot(id, version, code, type);
+    }
+
+    public TextDocument withCode(int version, String code) {
+        return new TextDocument(id, uri, version, code, type);
+    }
+
+    // offsets are resolved against this version, so multiple changes of one event are applied one by one
+    public TextDocument replace(int version, int startLine, int startCharacter, int endLine, int endCharacter, String text) {
+        int start = getOffset(startLine, startCharacter);
+        int end = Math.max(start, getOffset(endLine, endCharacter));
+        return withCode(version, code.substring(0, start) + text + code.substring(end));
+    }
+
+    // out of range positions are clamped to the end of line or document
+    public int getOffset(int line, int character) {
+        int[] starts = getLineStarts();
+        if (line < 0) {
+            return 0;
+        }
+        if (line >= starts.length) {
+            return code.length();
+        }
+        int start = starts[line];
+        int end = line + 1 < starts.length ? starts[line + 1] : code.length();
+        while (end > start && (code.charAt(end - 1) == '\n' || code.charAt(end - 1) == '\r')) {
+            end--;
+        }
+        return start + Math.max(0, Math.min(character, end - start));
+    }
+
+    private int[] getLineStarts() {
+        if (lineStarts == null) {
+            int[] starts = new int[16];
+            int count = 1;
+            for (int i = 0; i < code.length(); i++) {
+                char ch = code.charAt(i);
+                if (ch == '\n' || (ch == '\r' && (i + 1 == code.length() || code.charAt(i + 1) != '\n'))) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = i + 1;
+                }
+            }
+            lineStarts = Arrays.copyOf(starts, count);
+        }
+        return lineStarts;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package com.zergatul.scripting.monaco.metrics;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// counts bytes and time spent waiting for underlying stream
+public class MeteredInputStream extends FilterInputStream {
+
+    private long bytes;
+    private long nanos;
+
+    public MeteredInputStream(InputStream in) {
+        super(in);
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = System.nanoTime();
+        int value = super.read();
+        nanos += System.nanoTime() - start;
+        if (value >= 0) {
+            bytes++;
+        }
+        return value;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        int count = super.read(b, off, len);
+        nanos += System.nanoTime() - start;
+        if (count > 0) {
+            bytes += count;
+        }
+        return count;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,54 @@
+package com.zergatul.scripting.monaco.metrics;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// counts bytes and time spent in underlying stream
+public class MeteredOutputStream extends FilterOutputStream {
+
+    private long bytes;
+    private long nanos;
+
+    public MeteredOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        long start = System.nanoTime();
+        out.write(b);
+        nanos += System.nanoTime() - start;
+        bytes++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        long start = System.nanoTime();
+        out.write(b, off, len);
+        nanos += System.nanoTime() - start;
+        bytes += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        long start = System.nanoTime();
+        out.flush();
+        nanos += System.nanoTime() - start;
+    }
+
+    @Override
+    public void close() throws IOException {
+        long start = System.nanoTime();
+        out.close();
+        nanos += System.nanoTime() - start;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,203 @@
+package com.zergatul.scripting.monaco.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+    Process-wide request metrics, exposed on /metrics in Prometheus text format.
+    Each request is handled on single thread from start to end, so phases are recorded
+    into request bound to current thread. Code running outside a request (benchmarks, startup) records nothing.
+    Latencies are summaries over whole process lifetime, quantiles come from Histogram.
+*/
+public class Metrics {
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final ThreadLocal<Request> current = new ThreadLocal<>();
+    private static final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongAdder> cacheHits = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, LongAdder> cacheMisses = new ConcurrentHashMap<>();
+    private static final AtomicInteger inFlight = new AtomicInteger();
+    private static final ConcurrentHashMap<String, Long> scriptTypeBuilds = new ConcurrentHashMap<>();
+
+    public static Request begin(String endpoint) {
+        Request request = new Request(endpoint);
+        current.set(request);
+        inFlight.incrementAndGet();
+        return request;
+    }
+
+    public static void end(Request request, int status) {
+        current.remove();
+        inFlight.decrementAndGet();
+
+        Endpoint endpoint = endpoints.computeIfAbsent(request.endpoint, e -> new Endpoint());
+        endpoint.duration.record(System.nanoTime() - request.start);
+        for (Phase phase : Phase.values()) {
+            if (request.recorded[phase.ordinal()]) {
+                endpoint.phases[phase.ordinal()].record(request.phases[phase.ordinal()]);
+            }
+        }
+        endpoint.statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+        endpoint.requestBytes.add(request.requestBytes);
+        endpoint.responseBytes.add(request.responseBytes);
+    }
+
+    public static void record(Phase phase, long nanos) {
+        Request request = current.get();
+        if (request != null) {
+            request.phases[phase.ordinal()] += nanos;
+            request.recorded[phase.ordinal()] = true;
+        }
+    }
+
+    public static <T> T time(Phase phase, Supplier<T> supplier) {
+        long start = System.nanoTime();
+        T result = supplier.get();
+        record(phase, System.nanoTime() - start);
+        return result;
+    }
+
+    public static void addRequestBytes(long bytes) {
+        Request request = current.get();
+        if (request != null) {
+            request.requestBytes += bytes;
+        }
+    }
+
+    public static void addResponseBytes(long bytes) {
+        Request request = current.get();
+        if (request != null) {
+            request.responseBytes += bytes;
+        }
+    }
+
+    public static void cacheHit(String cache) {
+        cacheHits.computeIfAbsent(cache, c -> new LongAdder()).increment();
+    }
+
+    public static void cacheMiss(String cache) {
+        cacheMisses.computeIfAbsent(cache, c -> new LongAdder()).increment();
+    }
+
+    // startup cost of CompilationParameters and static symbols, see ScriptTypeRegistry
+    public static void scriptTypeBuilt(String type, long nanos) {
+        scriptTypeBuilds.put(type, nanos);
+    }
+
+    public static void write(Writer out) throws IOException {
+        Map<String, Endpoint> sorted = new TreeMap<>(endpoints);
+
+        out.write("# HELP jsl_request_duration_seconds Request handling time.\n");
+        out.write("# TYPE jsl_request_duration_seconds summary\n");
+        for (Map.Entry<String, Endpoint> entry : sorted.entrySet()) {
+            writeSummary(out, "jsl_request_duration_seconds", "endpoint=\"" + escape(entry.getKey()) + "\"", entry.getValue().duration);
+        }
+
+        out.write("# HELP jsl_request_phase_duration_seconds Request handling time by phase, summed per request.\n");
+        out.write("# TYPE jsl_request_phase_duration_seconds summary\n");
+        for (Map.Entry<String, Endpoint> entry : sorted.entrySet()) {
+            for (Phase phase : Phase.values()) {
+                Histogram histogram = entry.getValue().phases[phase.ordinal()];
+                if (histogram.getCount() > 0) {
+                    writeSummary(out, "jsl_request_phase_duration_seconds", "endpoint=\"" + escape(entry.getKey()) + "\",phase=\"" + phase.getLabel() + "\"", histogram);
+                }
+            }
+        }
+
+        out.write("# HELP jsl_requests_total Handled requests by response status.\n");
+        out.write("# TYPE jsl_requests_total counter\n");
+        for (Map.Entry<String, Endpoint> entry : sorted.entrySet()) {
+            for (Map.Entry<Integer, LongAdder> status : new TreeMap<>(entry.getValue().statuses).entrySet()) {
+                out.write("jsl_requests_total{endpoint=\"" + escape(entry.getKey()) + "\",status=\"" + status.getKey() + "\"} " + status.getValue().sum() + "\n");
+            }
+        }
+
+        out.write("# HELP jsl_request_bytes_total Request body bytes.\n");
+        out.write("# TYPE jsl_request_bytes_total counter\n");
+        for (Map.Entry<String, Endpoint> entry : sorted.entrySet()) {
+            out.write("jsl_request_bytes_total{endpoint=\"" + escape(entry.getKey()) + "\"} " + entry.getValue().requestBytes.sum() + "\n");
+        }
+
+        out.write("# HELP jsl_response_bytes_total Response body bytes as sent, after compression.\n");
+        out.write("# TYPE jsl_response_bytes_total counter\n");
+        for (Map.Entry<String, Endpoint> entry : sorted.entrySet()) {
+            out.write("jsl_response_bytes_total{endpoint=\"" + escape(entry.getKey()) + "\"} " + entry.getValue().responseBytes.sum() + "\n");
+        }
+
+        out.write("# HELP jsl_requests_in_flight Requests being handled.\n");
+        out.write("# TYPE jsl_requests_in_flight gauge\n");
+        out.write("jsl_requests_in_flight " + inFlight.get() + "\n");
+
+        out.write("# HELP jsl_cache_requests_total Cache lookups by result.\n");
+        out.write("# TYPE jsl_cache_requests_total counter\n");
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(cacheHits).entrySet()) {
+            out.write("jsl_cache_requests_total{cache=\"" + escape(entry.getKey()) + "\",result=\"hit\"} " + entry.getValue().sum() + "\n");
+        }
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(cacheMisses).entrySet()) {
+            out.write("jsl_cache_requests_total{cache=\"" + escape(entry.getKey()) + "\",result=\"miss\"} " + entry.getValue().sum() + "\n");
+        }
+
+        out.write("# HELP jsl_script_type_build_seconds Time to build compilation parameters and static symbols of script type at startup.\n");
+        out.write("# TYPE jsl_script_type_build_seconds gauge\n");
+        for (Map.Entry<String, Long> entry : new TreeMap<>(scriptTypeBuilds).entrySet()) {
+            out.write("jsl_script_type_build_seconds{type=\"" + escape(entry.getKey()) + "\"} " + seconds(entry.getValue()) + "\n");
+        }
+    }
+
+    private static void writeSummary(Writer out, String name, String labels, Histogram histogram) throws IOException {
+        for (double quantile : QUANTILES) {
+            out.write(name + "{" + labels + ",quantile=\"" + quantile + "\"} " + seconds(histogram.getValueAtQuantile(quantile)) + "\n");
+        }
+        out.write(name + "_sum{" + labels + "} " + seconds(histogram.getSum()) + "\n");
+        out.write(name + "_count{" + labels + "} " + histogram.getCount() + "\n");
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    public static class Request {
+
+        private final long start = System.nanoTime();
+        private final long[] phases = new long[Phase.values().length];
+        private final boolean[] recorded = new boolean[Phase.values().length];
+        private String endpoint;
+        private long requestBytes;
+        private long responseBytes;
+
+        private Request(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        // unknown paths are reported under one label, so they do not create series per path
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static class Endpoint {
+
+        private final Histogram duration = new Histogram();
+        private final Histogram[] phases = new Histogram[Phase.values().length];
+        private final ConcurrentHashMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+
+        private Endpoint() {
+            for (int i = 0; i < phases.length; i++) {
+                phases[i] = new Histogram();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.zergatul.scripting.monaco.metrics;
+
+public enum Phase {
+    READ("read"),
+    DECODE("decode"),
+    LEX("lex"),
+    PARSE("parse"),
+    BIND("bind"),
+    PROVIDER("provider"),
+    SERIALIZE("serialize"),
+    WRITE("write");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
\ No newline at end of file
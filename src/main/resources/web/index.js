@@ -8,19 +8,128 @@ import * as monaco from 'https://cdn.jsdelivr.net/npm/monaco-editor@0.48.0/+esm'
         const response = await fetch(url);
         return await response.json();
     };
+    const readResponse = async response => {
+        if (response.status == 200) {
+            return await response.json();
+        }
+        // 410: request was for document version which is already superseded
+        if (response.status != 410) {
+            console.warn(`${response.url}: ${response.status}`);
+        }
+        return null;
+    };
+    // Monaco keeps current result of a provider which throws cancellation, null result would clear it
+    const canceled = () => {
+        const error = new Error('Canceled');
+        error.name = 'Canceled';
+        return error;
+    };
     const post = async (url, body) => {
-        const response = await fetch(url, { method: 'POST', body: JSON.stringify(body) });
-        return await response.json();
+        return await readResponse(await fetch(url, { method: 'POST', body: JSON.stringify(body) }));
     };
 
     const tokens = await get('/code/tokens');
     const nodes = await get('/code/nodes');
 
-    const setDiagnostics = async (model) => {
-        let diagnostics = await post('/code/diagnostics', {
+    /*
+        Each model is opened as a document session on the server once,
+        then only content changes are sent. Requests refer to the document by id + version.
+        409 means server copy cannot follow the model (change was lost or reordered), 404 that server
+        does not know the document (restarted), in both cases the model is opened again with full text.
+    */
+    const documents = new Map();
+    const getDocument = model => documents.get(model.uri.toString());
+    const createDocument = model => {
+        const id = post('/code/document/open', {
             code: model.getValue(),
-            type: ''
+            type: '',
+            version: model.getVersionId()
+        }).then(response => response?.document);
+        documents.set(model.uri.toString(), id);
+        return id;
+    };
+    const isOutOfSync = response => response.status == 409 || response.status == 404;
+    // concurrent failures of one session open it again only once
+    const reopenDocument = (model, id) => {
+        if (getDocument(model) == id) {
+            id.then(document => {
+                if (document) {
+                    post('/code/document/close', { document });
+                }
+            });
+            createDocument(model);
+        }
+        return getDocument(model);
+    };
+    const openDocument = model => {
+        createDocument(model);
+        model.onDidChangeContent(async e => {
+            const id = getDocument(model);
+            const document = await id;
+            if (!document) {
+                // open failed, new session gets full text including this change
+                reopenDocument(model, id);
+                return;
+            }
+            const response = await fetch('/code/document/change', {
+                method: 'POST',
+                body: JSON.stringify({
+                    document,
+                    version: e.versionId,
+                    changes: e.changes.map(c => {
+                        return {
+                            rangeOffset: c.rangeOffset,
+                            rangeLength: c.rangeLength,
+                            text: c.text
+                        };
+                    })
+                })
+            });
+            if (isOutOfSync(response)) {
+                reopenDocument(model, id);
+            }
         });
+        model.onWillDispose(async () => {
+            const id = getDocument(model);
+            documents.delete(model.uri.toString());
+            await post('/code/document/close', { document: await id });
+        });
+    };
+    const postDocument = async (url, model, fields) => {
+        let id = getDocument(model);
+        for (let attempt = 0; ; attempt++) {
+            const document = await id;
+            if (!document) {
+                // open failed, without document id server cannot know the text, try to open once more
+                if (attempt == 0) {
+                    id = reopenDocument(model, id);
+                    continue;
+                }
+                return null;
+            }
+            const response = await fetch(url, {
+                method: 'POST',
+                body: JSON.stringify({
+                    ...fields,
+                    document,
+                    version: model.getVersionId()
+                })
+            });
+            if (isOutOfSync(response) && attempt == 0) {
+                id = reopenDocument(model, id);
+                continue;
+            }
+            return await readResponse(response);
+        }
+    };
+    const positionFields = position => {
+        return {
+            line: position.lineNumber,
+            column: position.column
+        };
+    };
+
+    const setDiagnostics = (model, diagnostics) => {
         let tokens = [];
         for (let diagnostic of diagnostics) {
             tokens.push({
@@ -43,49 +152,46 @@ import * as monaco from 'https://cdn.jsdelivr.net/npm/monaco-editor@0.48.0/+esm'
             };
         },
         async provideDocumentSemanticTokens(model, lastResultId, token) {
-            let tokenize = post('/code/tokenize', model.getValue());
-            setDiagnostics(model);
-            let lexerOutput = await tokenize;
-            let result = [];
-            let prevToken = { range: { line1: 1, column1: 1, length: 0 } };
-            for (let token of lexerOutput.tokens.list) {
-                let type = tokens[token.type];
-                if (type == 'WHITESPACE' || type == 'LINE_BREAK') {
-                    continue;
-                }
-                /*
-                    Line number (0-indexed, and offset from the previous line)
-                    Column position (0-indexed, and offset from the previous column, unless this is the beginning of a new line)
-                    Token length
-                    Token type index (0-indexed into the tokenTypes array defined in getLegend)
-                    Modifier index (0-indexed into the tokenModifiers array defined in getLegend)
-                */
-                result.push(
-                    token.range.line1 - prevToken.range.line1,
-                    token.range.line1 == prevToken.range.line1 ? token.range.column1 - (prevToken.range.column1) : token.range.column1 - 1,
-                    token.range.length,
-                    token.type,
-                    0);
-    
-                prevToken = token;
+            // tokens and diagnostics come from the same lex/parse/bind on the server
+            const analysis = await postDocument('/code/analyze', model, {
+                tokens: true,
+                diagnostics: true,
+                previousResultId: lastResultId
+            });
+            if (analysis == null) {
+                // superseded or failed, there is no other tokenizer, so returning null would turn highlighting off
+                throw canceled();
+            }
+            setDiagnostics(model, analysis.diagnostics);
+            // already in Monaco relative encoding, see SemanticTokens.encode
+            const tokens = analysis.tokens;
+            if (tokens.edits) {
+                return {
+                    resultId: tokens.resultId,
+                    edits: tokens.edits.map(edit => {
+                        return {
+                            start: edit.start,
+                            deleteCount: edit.deleteCount,
+                            data: Uint32Array.from(edit.data)
+                        };
+                    })
+                };
             }
             return {
-                data: result
+                resultId: tokens.resultId,
+                data: Uint32Array.from(tokens.data)
             };
         },
         releaseDocumentSemanticTokens(resultId) {
-    
+            if (resultId) {
+                post('/code/semantic-tokens/release', { resultId });
+            }
         }
     });
 
     monaco.languages.registerHoverProvider(languageId, {
         async provideHover(model, position) {
-            const hover = await post('/code/hover', {
-                code: model.getValue(),
-                type: "",
-                line: position.lineNumber,
-                column: position.column
-            });
+            const hover = await postDocument('/code/hover', model, positionFields(position));
             if (hover == null) {
                 return null;
             }
@@ -108,12 +214,7 @@ import * as monaco from 'https://cdn.jsdelivr.net/npm/monaco-editor@0.48.0/+esm'
 
     monaco.languages.registerDefinitionProvider(languageId, {
         async provideDefinition(model, position, token) {
-            const range = await post('/code/definition', {
-                code: model.getValue(),
-                type: "",
-                line: position.lineNumber,
-                column: position.column
-            });
+            const range = await postDocument('/code/definition', model, positionFields(position));
             if (range == null) {
                 return null;
             }
@@ -131,20 +232,38 @@ import * as monaco from 'https://cdn.jsdelivr.net/npm/monaco-editor@0.48.0/+esm'
     monaco.languages.registerCompletionItemProvider(languageId, {
         triggerCharacters: ['.'],
         async provideCompletionItems(model, position, context, token) {
-            const suggestions = await post('/code/completion', {
-                code: model.getValue(),
-                type: "",
-                line: position.lineNumber,
-                column: position.column
+            // server ranks candidates against the word before cursor, incomplete list makes monaco ask again on next keystroke
+            const list = await postDocument('/code/completion', model, {
+                ...positionFields(position),
+                prefix: model.getWordUntilPosition(position).word,
+                limit: 100
             });
+            if (list == null) {
+                return { suggestions: [], incomplete: true };
+            }
             return {
-                suggestions: suggestions.map(s => {
+                incomplete: list.isIncomplete,
+                suggestions: list.suggestions.map(s => {
                     return {
                         ...s,
                         kind: monaco.languages.CompletionItemKind[s.kind]
                     };
                 })
             };
+        },
+        async resolveCompletionItem(item, token) {
+            if (!item.id) {
+                return item;
+            }
+            const details = await post('/code/completion/resolve', { id: item.id });
+            if (details == null) {
+                return item;
+            }
+            return {
+                ...item,
+                detail: details.detail,
+                documentation: details.documentation
+            };
         }
     });
 
@@ -155,6 +274,12 @@ import * as monaco from 'https://cdn.jsdelivr.net/npm/monaco-editor@0.48.0/+esm'
         rules: await get('/code/token-rules')
     });
 
+    monaco.editor.onDidCreateModel(model => {
+        if (model.getLanguageId() == languageId) {
+            openDocument(model);
+        }
+    });
+
     monaco.editor.create(document.getElementById('container'), {
         value:
             'static int ww = 900;\n\n' +
@@ -0,0 +1,55 @@
+package com.zergatul.scripting.monaco;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class EditLogTest {
+
+    @Test
+    public void emptyTest() {
+        Assertions.assertNull(EditLog.EMPTY.since(0));
+    }
+
+    @Test
+    public void composeTest() {
+        EditLog log = EditLog.EMPTY
+                .append(2, 10, 20)
+                .append(3, 5, 30)
+                .append(4, 15, 8);
+
+        Assertions.assertEquals(new EditLog.Region(15, 8), log.since(3));
+        Assertions.assertEquals(new EditLog.Region(5, 8), log.since(2));
+        Assertions.assertEquals(new EditLog.Region(5, 8), log.since(1));
+        // latest version and versions before the log are not covered
+        Assertions.assertNull(log.since(4));
+        Assertions.assertNull(log.since(5));
+        Assertions.assertNull(log.since(0));
+    }
+
+    @Test
+    public void capacityTest() {
+        EditLog log = EditLog.EMPTY;
+        for (int version = 2; version <= 100; version++) {
+            log = log.append(version, version, version);
+        }
+
+        // last 32 versions are kept
+        Assertions.assertEquals(new EditLog.Region(69, 69), log.since(68));
+        Assertions.assertNull(log.since(67));
+    }
+
+    @Test
+    public void documentTest() throws InterruptedException {
+        Document document = new Document("doc", "", 1, "0123456789");
+        document.apply(2, List.of(new TextChange(7, 1, "ab"), new TextChange(2, 2, "")));
+        document.apply(3, List.of(new TextChange(0, 0, "x")));
+
+        // version 2 is "01456ab89": changes touch [2, 8) of the original text, version 3 inserts at the start
+        EditLog edits = document.snapshot().edits();
+        Assertions.assertEquals(new EditLog.Region(0, 9), edits.since(2));
+        Assertions.assertEquals(new EditLog.Region(0, 2), edits.since(1));
+        Assertions.assertEquals("x01456ab89", document.snapshot().code());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,180 @@
+package com.zergatul.scripting.monaco;
+
+import com.zergatul.scripting.TextRange;
+import com.zergatul.scripting.lexer.Lexer;
+import com.zergatul.scripting.lexer.LexerInput;
+import com.zergatul.scripting.lexer.Token;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class IncrementalTokenizerTest {
+
+    private static final String[] FRAGMENTS = {
+            "int", "x", "value1", " ", "    ", "\n", "\n\n", "1", "42", "1.5", "\"text\"", "\"", "'c'",
+            "/*", "*/", "//", "+", "++", "=", "==", ";", "(", ")", "{", "}", ".", ",", "main.chat(\"hi\");\n"
+    };
+
+    @Test
+    public void insertAtStartTest() throws InterruptedException {
+        check("int x = 1;\nint y = 2;", new TextChange(0, 0, "/* a */ "));
+        check("int x = 1;\nint y = 2;", new TextChange(0, 0, "\n\n"));
+        check("x", new TextChange(0, 0, "y"));
+    }
+
+    @Test
+    public void insertAtEndTest() throws InterruptedException {
+        check("int x = 1;\nint y = 2;", new TextChange(21, 0, "\nint z = 3;"));
+        check("int x = 1;", new TextChange(10, 0, "\n"));
+        check("", new TextChange(0, 0, "int x = 1;"));
+    }
+
+    @Test
+    public void deleteToEndTest() throws InterruptedException {
+        check("int x = 1;\nint y = 2;", new TextChange(5, 16, ""));
+        check("int x = 1;\nint y = 2;", new TextChange(0, 21, ""));
+        check("int x = 1;\nint y = 2;\n", new TextChange(20, 2, ""));
+    }
+
+    @Test
+    public void multiLineEditTest() throws InterruptedException {
+        check("int x = 1;\nint y = 2;\nint z = 3;", new TextChange(4, 14, "a\n\nb = 5;\nint c"));
+        check("int x = 1;\nint y = 2;\nint z = 3;", new TextChange(8, 14, ""));
+        // token on the resync line moves to another column
+        check("a + b;\nc + d;", new TextChange(2, 0, "+ e\nf "));
+    }
+
+    @Test
+    public void commentOutRestTest() throws InterruptedException {
+        // new comment swallows the rest of a long document, relex window has to grow to the end
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            code.append("int v").append(i).append(" = ").append(i).append(";\n");
+        }
+        check(code.toString(), new TextChange(0, 0, "/*"));
+        check(code.toString(), new TextChange(code.length() / 2, 0, "\""));
+    }
+
+    @Test
+    public void randomEditsTest() throws InterruptedException {
+        for (int seed = 0; seed < 200; seed++) {
+            runRandomEdits(new Random(seed), true);
+        }
+    }
+
+    @Test
+    public void randomEditsWithoutEditLogTest() throws InterruptedException {
+        for (int seed = 0; seed < 200; seed++) {
+            runRandomEdits(new Random(seed), false);
+        }
+    }
+
+    private static void runRandomEdits(Random random, boolean withEditLog) throws InterruptedException {
+        Document document = new Document("doc", "", 1, randomText(random, 100));
+        IncrementalTokenizer tokenizer = new IncrementalTokenizer(4);
+        tokenizer.tokenize(snapshot(document, withEditLog));
+
+        for (int version = 2; version < 60; version++) {
+            document.apply(version, randomChanges(random, document.snapshot().code()));
+
+            // skipped versions make edit log compose several edits, long gaps fall out of the log
+            int skip = random.nextInt(10);
+            if (skip < 3 || (skip == 3 && version % 40 != 0)) {
+                continue;
+            }
+
+            SourceSnapshot snapshot = snapshot(document, withEditLog);
+            assertTokens(snapshot.code(), tokenizer.tokenize(snapshot));
+        }
+    }
+
+    // Monaco sends changes of one event sorted from the end of the text
+    private static List<TextChange> randomChanges(Random random, String code) {
+        List<TextChange> changes = new ArrayList<>();
+        int count = 1 + random.nextInt(3);
+        int limit = code.length();
+        for (int i = 0; i < count && limit >= 0; i++) {
+            int start;
+            int length;
+            switch (random.nextInt(8)) {
+                case 0 -> {
+                    start = 0;
+                    length = Math.min(limit, random.nextInt(5));
+                }
+                case 1 -> {
+                    start = limit;
+                    length = 0;
+                }
+                case 2 -> {
+                    // delete up to the end of the document
+                    start = random.nextInt(limit + 1);
+                    length = limit - start;
+                    if (limit != code.length()) {
+                        length = 0;
+                    }
+                }
+                default -> {
+                    start = random.nextInt(limit + 1);
+                    length = random.nextInt(Math.min(40, limit - start) + 1);
+                }
+            }
+            changes.add(new TextChange(start, length, random.nextInt(4) == 0 ? "" : randomText(random, 1 + random.nextInt(4))));
+            limit = start - 1;
+        }
+        return changes;
+    }
+
+    private static String randomText(Random random, int fragments) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < fragments; i++) {
+            builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        return builder.toString();
+    }
+
+    private static SourceSnapshot snapshot(Document document, boolean withEditLog) {
+        SourceSnapshot snapshot = document.snapshot();
+        return withEditLog ? snapshot : new SourceSnapshot(snapshot.document(), snapshot.version(), snapshot.code(), snapshot.type());
+    }
+
+    private static void check(String code, TextChange change) throws InterruptedException {
+        for (boolean withEditLog : new boolean[] { true, false }) {
+            Document document = new Document("doc", "", 1, code);
+            IncrementalTokenizer tokenizer = new IncrementalTokenizer(4);
+            tokenizer.tokenize(snapshot(document, withEditLog));
+            document.apply(2, List.of(change));
+            SourceSnapshot snapshot = snapshot(document, withEditLog);
+            assertTokens(snapshot.code(), tokenizer.tokenize(snapshot));
+        }
+    }
+
+    private static void assertTokens(String code, TokenList actual) {
+        List<Token> expected = new ArrayList<>();
+        for (Token token : new Lexer(new LexerInput(code)).lex().tokens()) {
+            expected.add(token);
+        }
+
+        List<Integer> lineStarts = new ArrayList<>();
+        lineStarts.add(0);
+        for (int i = 0; i < code.length(); i++) {
+            if (code.charAt(i) == '\n') {
+                lineStarts.add(i + 1);
+            }
+        }
+
+        Assertions.assertEquals(expected.size(), actual.size(), () -> "Token count for:\n" + code);
+        for (int i = 0; i < expected.size(); i++) {
+            Token token = expected.get(i);
+            TextRange range = token.range;
+            String message = "Token " + i + " for:\n" + code;
+            Assertions.assertEquals(token.type, actual.getType(i), message);
+            Assertions.assertEquals(lineStarts.get(range.getLine1() - 1) + range.getColumn1() - 1, actual.getOffset(i), message);
+            Assertions.assertEquals(range.getLine1(), actual.getLine(i), message);
+            Assertions.assertEquals(range.getColumn1(), actual.getColumn(i), message);
+            Assertions.assertEquals(range.getLength(), actual.getLength(i), message);
+        }
+    }
+}
\ No newline at end of file